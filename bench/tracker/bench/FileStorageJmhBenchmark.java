@@ -0,0 +1,85 @@
+package tracker.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.controllers.FileBackedTaskManager;
+import tracker.controllers.FileStorageOptions;
+import tracker.controllers.TaskJournal;
+import tracker.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Сохранение и загрузка FileBackedTaskManager для снимков CSV и двоичного формата.
+// Сохранение меряется через updateTask: без журнала каждая мутация пишет снимок целиком.
+// Запуск: java tracker.bench.JmhBenchmarks FileStorageJmhBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileStorageJmhBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"CSV", "BINARY"})
+    public FileStorageOptions.Format format;
+
+    private File file;
+    private FileStorageOptions options;
+    private FileBackedTaskManager manager;
+    private Task task;
+
+    @Setup
+    public void setUp() throws IOException {
+        File csv = File.createTempFile("board", ".csv");
+        LoadBenchmark.writeBoard(csv, size);
+        file = File.createTempFile("board", ".snapshot");
+        FileBackedTaskManager.convert(csv, file, format);
+        csv.delete();
+
+        options = FileStorageOptions.snapshot();
+        options.setFormat(format);
+        manager = FileBackedTaskManager.loadFromFile(file, options);
+        task = manager.getAllTasks().get(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.close();
+        file.delete();
+        new TaskJournal(TaskJournal.pathFor(file)).clear();
+    }
+
+    @Benchmark
+    public void save() {
+        task.setStatus(task.getStatus() == Task.Status.DONE ? Task.Status.NEW : Task.Status.DONE);
+        manager.updateTask(task);
+    }
+
+    @Benchmark
+    public FileBackedTaskManager load() {
+        return FileBackedTaskManager.loadFromFile(file, options);
+    }
+
+    // Открытие без разбора задач: только индекс двоичного снимка, для CSV - обычная загрузка
+    @Benchmark
+    public FileBackedTaskManager openLazily() {
+        FileStorageOptions lazy = FileStorageOptions.snapshot();
+        lazy.setFormat(format);
+        lazy.setLoadMode(FileStorageOptions.LoadMode.LAZY);
+        return FileBackedTaskManager.loadFromFile(file, lazy);
+    }
+}
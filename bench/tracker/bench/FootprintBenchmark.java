@@ -0,0 +1,108 @@
+package tracker.bench;
+
+import tracker.controllers.InMemoryHistoryManager;
+import tracker.controllers.InMemoryTaskManager;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.util.IntHashMap;
+import tracker.util.IntMap;
+
+import java.lang.ref.Reference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Память кучи на задачу: менеджер на IntHashMap против того же менеджера на HashMap,
+// и карта подзадач эпика на IntHashMap против HashMap<Integer, ...>.
+// Запуск: java -Xmx4g tracker.bench.FootprintBenchmark [число задач]
+public class FootprintBenchmark {
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        // Объекты задач одинаковы в обоих вариантах, разница - только хранилище
+        long hashMap = measure(() -> fill(new HashMapTaskManager(), size));
+        long intMap = measure(() -> fill(new InMemoryTaskManager(new InMemoryHistoryManager()), size));
+        System.out.printf("Менеджер, %,d задач (подзадачи по 100 на эпик)%n", size);
+        System.out.printf("  HashMap<Integer, ...>: %6.1f байт на задачу%n", (double) hashMap / size);
+        System.out.printf("  IntHashMap:            %6.1f байт на задачу%n", (double) intMap / size);
+
+        // Эпик хранит вклад каждой подзадачи по её id; значение общее, чтобы мерить только саму карту
+        Object contribution = new Object();
+        long boxed = measure(() -> {
+            Map<Integer, Object> ids = new HashMap<>();
+            for (int i = 0; i < size; i++) ids.put(1_000 + i, contribution);
+            return ids;
+        });
+        long primitive = measure(() -> {
+            IntHashMap<Object> ids = new IntHashMap<>();
+            for (int i = 0; i < size; i++) ids.put(1_000 + i, contribution);
+            return ids;
+        });
+        System.out.printf("Подзадачи эпика, %,d id%n", size);
+        System.out.printf("  HashMap<Integer, ...>: %6.1f байт на id%n", (double) boxed / size);
+        System.out.printf("  IntHashMap:            %6.1f байт на id%n", (double) primitive / size);
+    }
+
+    private static InMemoryTaskManager fill(InMemoryTaskManager manager, int size) {
+        Epic epic = null;
+        for (int i = 0; i < size; i++) {
+            if (i % 100 == 0) {
+                epic = new Epic("Эпик", "");
+                manager.createEpic(epic);
+            } else if (i % 5 == 0) {
+                manager.createTask(new Task("Задача", ""));
+            } else {
+                manager.createSubtask(new Subtask("Подзадача", "", epic.getId()));
+            }
+        }
+        return manager;
+    }
+
+    // Разница занятой кучи до и после построения; объект держится до второго замера
+    private static long measure(Supplier<Object> builder) {
+        long before = usedHeap();
+        Object built = builder.get();
+        long after = usedHeap();
+        Reference.reachabilityFence(built);
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Прежнее хранилище - для сравнения
+    private static class HashMapTaskManager extends InMemoryTaskManager {
+        HashMapTaskManager() {
+            super(new InMemoryHistoryManager(), new BoxedMap<>(), new BoxedMap<>(), new BoxedMap<>());
+        }
+    }
+
+    // HashMap под интерфейсом менеджера: ключи по-прежнему упакованы
+    private static class BoxedMap<V> extends HashMap<Integer, V> implements IntMap<V> {
+        @Override
+        public V get(int key) {
+            return get((Object) key);
+        }
+
+        @Override
+        public boolean containsKey(int key) {
+            return containsKey((Object) key);
+        }
+
+        @Override
+        public V put(int key, V value) {
+            return put((Integer) key, value);
+        }
+
+        @Override
+        public V remove(int key) {
+            return remove((Object) key);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package tracker.bench;
+
+import tracker.controllers.InMemoryHistoryManager;
+import tracker.model.Task;
+
+// Память и скорость истории без ограничения и с ограничением вместимости.
+// Каждая задача просматривается один раз, как при обходе большой доски.
+// Запуск: java tracker.bench.HistoryBenchmark [число задач] [вместимость]
+public class HistoryBenchmark {
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+
+        Task[] tasks = new Task[size];
+        for (int i = 0; i < size; i++) {
+            tasks[i] = new Task("Задача " + i, "");
+            tasks[i].setId(i + 1);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            measure("без ограничения", new InMemoryHistoryManager(), tasks);
+            measure("вместимость " + capacity, new InMemoryHistoryManager(capacity), tasks);
+        }
+    }
+
+    private static void measure(String name, InMemoryHistoryManager history, Task[] tasks) {
+        long before = usedHeap();
+        long start = System.nanoTime();
+        for (Task task : tasks) {
+            history.add(task);
+        }
+        long elapsed = System.nanoTime() - start;
+        long retained = usedHeap() - before;
+
+        System.out.printf("%-20s просмотров/с: %,12.0f  занято в куче: %,8d КБ  в истории: %d%n", name, tasks.length / (elapsed / 1e9), retained / 1024, history.getHistory().size());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
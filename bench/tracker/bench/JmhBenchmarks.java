@@ -0,0 +1,24 @@
+package tracker.bench;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Запуск JMH-замеров из IDE или из командной строки без сборки uber-jar.
+// Библиотека jmh подключена к модулю (.idea/libraries/jmh.xml), а её обработчик аннотаций
+// при компиляции bench генерирует код замеров - обработка аннотаций включена в .idea/compiler.xml.
+// Запуск: java tracker.bench.JmhBenchmarks [регулярное выражение имени] [параметр=значение ...]
+// Например: java tracker.bench.JmhBenchmarks ManagerJmhBenchmark size=1000
+public class JmhBenchmarks {
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "tracker\\.bench\\..*JmhBenchmark";
+
+        ChainedOptionsBuilder options = new OptionsBuilder().include(include);
+        for (int i = 1; i < args.length; i++) {
+            String[] param = args[i].split("=", 2);
+            options.param(param[0], param[1].split(","));
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,74 @@
+package tracker.bench;
+
+import tracker.controllers.FileBackedTaskManager;
+import tracker.controllers.FileStorageOptions;
+import tracker.controllers.TaskCsvFormat;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Время загрузки большого снимка в зависимости от числа потоков.
+// Запуск: java tracker.bench.LoadBenchmark [число задач] [повторы] [максимум потоков]
+public class LoadBenchmark {
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        File file = File.createTempFile("board", ".csv");
+        file.deleteOnExit();
+        writeBoard(file, size);
+        System.out.printf("Снимок: %d задач, %d МБ%n", size, file.length() / (1024 * 1024));
+
+        long baseline = 0;
+        int cores = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        for (int parallelism = 1; parallelism <= cores; parallelism *= 2) {
+            FileStorageOptions options = FileStorageOptions.snapshot();
+            options.setLoadParallelism(parallelism);
+
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < repeats; i++) {
+                long start = System.nanoTime();
+                FileBackedTaskManager.loadFromFile(file, options);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            if (parallelism == 1) baseline = best;
+            System.out.printf("потоков: %2d  лучшее время: %6d мс  ускорение: %.2fx%n", parallelism, best / 1_000_000, (double) baseline / best);
+        }
+    }
+
+    // Один эпик на каждые 100 записей, остальное - подзадачи с непересекающимся временем и обычные задачи
+    static void writeBoard(File file, int size) throws IOException {
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        Task.Status[] statuses = Task.Status.values();
+        int epics = Math.max(1, size / 100);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(TaskCsvFormat.HEADER);
+            writer.newLine();
+            for (int id = 1; id <= epics; id++) {
+                Epic epic = new Epic("Эпик " + id, "Описание эпика " + id);
+                epic.setId(id);
+                writer.write(TaskCsvFormat.format(epic));
+                writer.newLine();
+            }
+            for (int id = epics + 1; id <= size; id++) {
+                Task task = id % 5 == 0 ? new Task("Задача " + id, "Описание задачи " + id)
+                        : new Subtask("Подзадача " + id, "Описание подзадачи " + id, 1 + id % epics);
+                task.setId(id);
+                task.setStatus(statuses[id % statuses.length]);
+                task.setStartTime(start.plusMinutes(id * 10L));
+                task.setDuration(Duration.ofMinutes(5));
+                writer.write(TaskCsvFormat.format(task));
+                writer.newLine();
+            }
+        }
+    }
+}
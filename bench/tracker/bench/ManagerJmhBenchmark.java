@@ -0,0 +1,145 @@
+package tracker.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.controllers.InMemoryHistoryManager;
+import tracker.controllers.InMemoryTaskManager;
+import tracker.controllers.TaskPage;
+import tracker.controllers.TaskQuery;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Горячие пути InMemoryTaskManager на доске из size задач: создание с проверкой пересечений,
+// просмотр с записью в историю, список приоритетов, страница по id, история и пересчёт эпика.
+// Создающие замеры сразу удаляют созданное, чтобы размер доски не рос за время замера.
+// Запуск: java tracker.bench.JmhBenchmarks ManagerJmhBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManagerJmhBenchmark {
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final int SUBTASKS_PER_EPIC = 100;
+    private static final int HISTORY_VIEWS = 1_000;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private InMemoryTaskManager manager;
+    private int[] taskIds;
+    private Subtask[] epicSubtasks;
+    private int epicId;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+
+        // Задачи по 30 минут в начале каждого часа: вторая половина часа свободна для создаваемых
+        taskIds = new int[size];
+        for (int i = 0; i < size; i++) {
+            Task task = new Task("Задача " + i, "");
+            task.setStartTime(START.plusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            manager.createTask(task);
+            taskIds[i] = task.getId();
+        }
+
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+        epicId = epic.getId();
+        epicSubtasks = new Subtask[SUBTASKS_PER_EPIC];
+        for (int i = 0; i < SUBTASKS_PER_EPIC; i++) {
+            epicSubtasks[i] = new Subtask("Подзадача " + i, "", epicId);
+            manager.createSubtask(epicSubtasks[i]);
+        }
+
+        // Перемешанный порядок id, чтобы просмотры не шли по памяти подряд
+        Random random = new Random(42);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = taskIds[i];
+            taskIds[i] = taskIds[j];
+            taskIds[j] = swap;
+        }
+        for (int i = 0; i < HISTORY_VIEWS; i++) {
+            manager.getTask(taskIds[i % size]);
+        }
+    }
+
+    @Benchmark
+    public void createTaskWithValidation() {
+        Task task = new Task("Новая", "");
+        task.setStartTime(START.plusHours(nextIndex()).plusMinutes(40));
+        task.setDuration(Duration.ofMinutes(10));
+        manager.createTask(task);
+        manager.deleteTask(task.getId());
+    }
+
+    @Benchmark
+    public void createSubtaskWithValidation() {
+        Subtask subtask = new Subtask("Новая", "", epicId);
+        subtask.setStartTime(START.plusHours(nextIndex()).plusMinutes(40));
+        subtask.setDuration(Duration.ofMinutes(10));
+        manager.createSubtask(subtask);
+        manager.deleteSubtask(subtask.getId());
+    }
+
+    @Benchmark
+    public Task getTaskRecordingHistory() {
+        return manager.getTask(taskIds[nextIndex()]);
+    }
+
+    @Benchmark
+    public List<Task> getPrioritizedTasks() {
+        return manager.getPrioritizedTasks();
+    }
+
+    // Без изменений между вызовами отдаётся уже собранный снимок
+    @Benchmark
+    public List<Task> getPrioritizedView() {
+        return manager.getPrioritizedView();
+    }
+
+    // Единственный эпик стоит после size задач: страница по id не должна перебирать их id
+    @Benchmark
+    public TaskPage pageEpicsById() {
+        return manager.page(TaskQuery.ofType(Task.Type.EPIC), null, 50);
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return manager.getHistory();
+    }
+
+    // Смена статуса одной подзадачи пересчитывает статус и время эпика
+    @Benchmark
+    public void recomputeEpic() {
+        Subtask subtask = epicSubtasks[nextIndex() % SUBTASKS_PER_EPIC];
+        subtask.setStatus(subtask.getStatus() == Task.Status.DONE ? Task.Status.NEW : Task.Status.DONE);
+        manager.updateSubtask(subtask);
+    }
+
+    private int nextIndex() {
+        cursor = cursor + 1 < size ? cursor + 1 : 0;
+        return cursor;
+    }
+}
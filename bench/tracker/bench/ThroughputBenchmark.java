@@ -0,0 +1,248 @@
+package tracker.bench;
+
+import tracker.controllers.ConcurrentTaskManager;
+import tracker.controllers.InMemoryHistoryManager;
+import tracker.controllers.InMemoryTaskManager;
+import tracker.controllers.Managers;
+import tracker.controllers.SynchronizedHistoryManager;
+import tracker.controllers.TaskManager;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Пропускная способность менеджера под смешанной нагрузкой из нескольких потоков:
+// одна глобальная блокировка вокруг InMemoryTaskManager против ConcurrentTaskManager
+// с историей под общей блокировкой и с ConcurrentHistoryManager.
+// Запуск: java tracker.bench.ThroughputBenchmark [доля записей, %] [секунд на замер] [максимум потоков]
+public class ThroughputBenchmark {
+    private static final int EPICS = 200;
+    private static final int SUBTASKS_PER_EPIC = 20;
+    private static final int TASKS = 4_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int writePercent = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        long millis = (args.length > 1 ? Long.parseLong(args[1]) : 2) * 1000;
+        int cores = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("Записей: %d%%, замер: %d мс, ядер: %d%n", writePercent, millis, Runtime.getRuntime().availableProcessors());
+        run("глобальная блокировка", () -> new GloballyLocked(new InMemoryTaskManager(new InMemoryHistoryManager())), writePercent, millis, cores);
+        run("ConcurrentTaskManager + общая блокировка истории", () -> new ConcurrentTaskManager(new SynchronizedHistoryManager(new InMemoryHistoryManager())), writePercent, millis, cores);
+        run("ConcurrentTaskManager + ConcurrentHistoryManager", Managers::getConcurrent, writePercent, millis, cores);
+    }
+
+    private static void run(String name, Supplier<TaskManager> factory, int writePercent, long millis, int cores) throws InterruptedException {
+        System.out.println(name);
+        // Прогрев JIT, результат не учитывается
+        TaskManager warmup = factory.get();
+        List<Integer> warmupIds = new ArrayList<>();
+        List<Subtask> warmupSubtasks = new ArrayList<>();
+        fill(warmup, warmupIds, warmupSubtasks);
+        measure(warmup, warmupIds, warmupSubtasks, 1, writePercent, millis);
+
+        double baseline = 0;
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            TaskManager manager = factory.get();
+            List<Integer> taskIds = new ArrayList<>();
+            List<Subtask> subtasks = new ArrayList<>();
+            fill(manager, taskIds, subtasks);
+
+            double opsPerSecond = measure(manager, taskIds, subtasks, threads, writePercent, millis);
+            if (threads == 1) baseline = opsPerSecond;
+            System.out.printf("  потоков: %2d  операций/с: %,12.0f  ускорение: %.2fx%n", threads, opsPerSecond, opsPerSecond / baseline);
+        }
+    }
+
+    private static void fill(TaskManager manager, List<Integer> taskIds, List<Subtask> subtasks) {
+        for (int e = 0; e < EPICS; e++) {
+            Epic epic = new Epic("Эпик " + e, "");
+            manager.createEpic(epic);
+            for (int i = 0; i < SUBTASKS_PER_EPIC; i++) {
+                Subtask subtask = new Subtask("Подзадача " + i, "", epic.getId());
+                manager.createSubtask(subtask);
+                subtasks.add(subtask);
+            }
+        }
+        for (int i = 0; i < TASKS; i++) {
+            Task task = new Task("Задача " + i, "");
+            manager.createTask(task);
+            taskIds.add(task.getId());
+        }
+    }
+
+    private static double measure(TaskManager manager, List<Integer> taskIds, List<Subtask> subtasks, int threads, int writePercent, long millis) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        Task.Status[] statuses = Task.Status.values();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long done = 0;
+                while ((done & 0xFF) != 0 || System.nanoTime() < deadline) {
+                    if (random.nextInt(100) < writePercent) {
+                        // Смена статуса подзадачи пересчитывает её эпик
+                        Subtask subtask = subtasks.get(random.nextInt(subtasks.size()));
+                        Subtask updated = new Subtask(subtask.getName(), subtask.getDescription(), subtask.getEpicId());
+                        updated.setId(subtask.getId());
+                        updated.setStatus(statuses[random.nextInt(statuses.length)]);
+                        manager.updateSubtask(updated);
+                    } else if (random.nextBoolean()) {
+                        manager.getTask(taskIds.get(random.nextInt(taskIds.size())));
+                    } else {
+                        manager.getSubtask(subtasks.get(random.nextInt(subtasks.size())).getId());
+                    }
+                    done++;
+                }
+                operations.add(done);
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return operations.sum() / ((System.nanoTime() - started) / 1e9);
+    }
+
+    // Так менеджер используется сейчас: каждый вызов под одной общей блокировкой
+    private static class GloballyLocked implements TaskManager {
+        private final TaskManager delegate;
+
+        GloballyLocked(TaskManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized List<Task> getAllTasks() {
+            return delegate.getAllTasks();
+        }
+
+        @Override
+        public synchronized List<Epic> getAllEpics() {
+            return delegate.getAllEpics();
+        }
+
+        @Override
+        public synchronized List<Subtask> getAllSubtasks() {
+            return delegate.getAllSubtasks();
+        }
+
+        @Override
+        public synchronized void deleteAllTasks() {
+            delegate.deleteAllTasks();
+        }
+
+        @Override
+        public synchronized void deleteAllEpics() {
+            delegate.deleteAllEpics();
+        }
+
+        @Override
+        public synchronized void deleteAllSubtasks() {
+            delegate.deleteAllSubtasks();
+        }
+
+        @Override
+        public synchronized Task getTask(int id) {
+            return delegate.getTask(id);
+        }
+
+        @Override
+        public synchronized Epic getEpic(int id) {
+            return delegate.getEpic(id);
+        }
+
+        @Override
+        public synchronized Subtask getSubtask(int id) {
+            return delegate.getSubtask(id);
+        }
+
+        @Override
+        public synchronized void deleteTask(int id) {
+            delegate.deleteTask(id);
+        }
+
+        @Override
+        public synchronized void deleteEpic(int id) {
+            delegate.deleteEpic(id);
+        }
+
+        @Override
+        public synchronized void deleteSubtask(int id) {
+            delegate.deleteSubtask(id);
+        }
+
+        @Override
+        public synchronized void createTask(Task task) {
+            delegate.createTask(task);
+        }
+
+        @Override
+        public synchronized void createEpic(Epic epic) {
+            delegate.createEpic(epic);
+        }
+
+        @Override
+        public synchronized void createSubtask(Subtask subtask) {
+            delegate.createSubtask(subtask);
+        }
+
+        @Override
+        public synchronized void updateTask(Task updatedTask) {
+            delegate.updateTask(updatedTask);
+        }
+
+        @Override
+        public synchronized void updateEpic(Epic updatedEpic) {
+            delegate.updateEpic(updatedEpic);
+        }
+
+        @Override
+        public synchronized void updateSubtask(Subtask updatedSubtask) {
+            delegate.updateSubtask(updatedSubtask);
+        }
+
+        @Override
+        public synchronized List<Task> getHistory() {
+            return delegate.getHistory();
+        }
+
+        @Override
+        public synchronized void createTasks(List<Task> tasks) {
+            delegate.createTasks(tasks);
+        }
+
+        @Override
+        public synchronized void createSubtasks(List<Subtask> subtasks) {
+            delegate.createSubtasks(subtasks);
+        }
+
+        @Override
+        public synchronized void updateAll(List<? extends Task> tasks) {
+            delegate.updateAll(tasks);
+        }
+
+        @Override
+        public synchronized void deleteByIds(Collection<Integer> ids) {
+            delegate.deleteByIds(ids);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package tracker.controllers;
+
+import tracker.model.Task;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// История для многопоточного менеджера. Просмотр не трогает общий список: поток дописывает событие
+// в свой буфер (блокировка буфера свободна, пока его не сливают), общий только счётчик порядка.
+// Буферы сливаются в упорядоченную историю пачками - когда буфер набрал BATCH событий и слияние
+// никем не занято, или при getHistory. События применяются строго по номеру, поэтому порядок
+// просмотров и удалений тот же, что при одной блокировке. Буфер знает свой поток только по слабой
+// ссылке: буферы завершившихся потоков выбрасываются при слиянии, так что при смене потоков
+// (пул с временными потоками, поток на запрос) список буферов не растёт.
+public class ConcurrentHistoryManager implements HistoryManager {
+    private static final int BATCH = 64;
+
+    private final HistoryManager history;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Queue<EventBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<EventBuffer> localBuffer = ThreadLocal.withInitial(this::register);
+    private final ReentrantLock drainLock = new ReentrantLock();
+    // События, номер которых ещё не мог быть упорядочен при прошлом слиянии; только под drainLock
+    private Events carried = new Events(BATCH);
+
+    public ConcurrentHistoryManager() {
+        this(new InMemoryHistoryManager());
+    }
+
+    // Упорядоченная история, в которую сливаются события; вызывается только под drainLock
+    public ConcurrentHistoryManager(HistoryManager history) {
+        this.history = history;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) return;
+        record(task.getId(), task);
+    }
+
+    @Override
+    public void remove(int id) {
+        record(id, null);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        drainLock.lock();
+        try {
+            drain();
+            return history.getHistory();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistoryView() {
+        drainLock.lock();
+        try {
+            drain();
+            return history.getHistoryView();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        drainLock.lock();
+        try {
+            drain();
+            return history.size();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void record(int id, Task task) {
+        if (localBuffer.get().append(id, task, sequence) >= BATCH && drainLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    // Новый поток - повод выбросить буферы завершившихся, если слияние никем не занято
+    private EventBuffer register() {
+        EventBuffer buffer = new EventBuffer(Thread.currentThread());
+        buffers.add(buffer);
+        if (drainLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                drainLock.unlock();
+            }
+        }
+        return buffer;
+    }
+
+    // Для тестов: сколько буферов сейчас зарегистрировано
+    int getBufferCount() {
+        return buffers.size();
+    }
+
+    // Номер события берётся под блокировкой буфера. Значит, любое событие с номером меньше limit
+    // либо уже в буфере, либо его поток держит блокировку буфера - и слияние его дождётся.
+    // События с номером от limit и выше могут ещё не иметь предшественников в других буферах,
+    // их откладываем до следующего слияния.
+    private void drain() {
+        long limit = sequence.get();
+
+        PriorityQueue<Events> runs = new PriorityQueue<>((a, b) -> Long.compare(a.head(), b.head()));
+        if (carried.hasNext()) runs.add(carried);
+        for (Iterator<EventBuffer> iterator = buffers.iterator(); iterator.hasNext(); ) {
+            EventBuffer buffer = iterator.next();
+            // Завершение потока проверяется до выемки: после неё в буфер уже никто не допишет
+            boolean abandoned = buffer.isAbandoned();
+            Events events = buffer.takeAll();
+            if (events.hasNext()) runs.add(events);
+            if (abandoned) iterator.remove();
+        }
+
+        // События каждого буфера уже упорядочены - сливаем их как отсортированные серии
+        Events next = new Events(BATCH);
+        while (!runs.isEmpty()) {
+            Events run = runs.poll();
+            long seq = run.head();
+            if (seq >= limit) {
+                next.add(seq, run.id(), run.task());
+            } else if (run.task() != null) {
+                history.add(run.task());
+            } else {
+                history.remove(run.id());
+            }
+            run.advance();
+            if (run.hasNext()) runs.add(run);
+        }
+        carried = next;
+    }
+
+    private static class EventBuffer {
+        private final WeakReference<Thread> owner;
+        private Events events = new Events(BATCH);
+
+        EventBuffer(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+
+        boolean isAbandoned() {
+            Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+
+        synchronized int append(int id, Task task, AtomicLong sequence) {
+            events.add(sequence.getAndIncrement(), id, task);
+            return events.size();
+        }
+
+        synchronized Events takeAll() {
+            Events taken = events;
+            events = new Events(Math.max(BATCH, taken.size()));
+            return taken;
+        }
+    }
+
+    // Серия событий в параллельных массивах, без объекта на каждое событие
+    private static class Events {
+        private long[] seqs;
+        private int[] ids;
+        private Task[] tasks;
+        private int size;
+        private int position;
+
+        Events(int capacity) {
+            seqs = new long[capacity];
+            ids = new int[capacity];
+            tasks = new Task[capacity];
+        }
+
+        void add(long seq, int id, Task task) {
+            if (size == seqs.length) {
+                int capacity = size * 2;
+                seqs = Arrays.copyOf(seqs, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+                tasks = Arrays.copyOf(tasks, capacity);
+            }
+            seqs[size] = seq;
+            ids[size] = id;
+            tasks[size] = task;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean hasNext() {
+            return position < size;
+        }
+
+        long head() {
+            return seqs[position];
+        }
+
+        int id() {
+            return ids[position];
+        }
+
+        Task task() {
+            return tasks[position];
+        }
+
+        void advance() {
+            position++;
+        }
+    }
+}
@@ -0,0 +1,701 @@
+package tracker.controllers;
+
+import tracker.exceptions.TimeConflictException;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.util.IntMap;
+import tracker.util.Versioned;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Потокобезопасный менеджер. Карты - ConcurrentHashMap, поэтому getTask/getEpic/getSubtask
+// и списки всех задач читаются без блокировок. Изменения одной задачи или одного эпика
+// со всеми его подзадачами идут под блокировкой полосы, выбранной по id задачи или эпика.
+// Индекс по времени общий, поэтому проверка пересечения и запись в него идут под scheduleLock
+// и только для задач со временем. Массовые удаления берут bulkLock на запись и исключают всё остальное.
+// Порядок захвата: bulkLock -> полоса -> scheduleLock.
+// HistoryManager должен быть потокобезопасным, см. Managers.getConcurrent().
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private static final int STRIPES = 64;
+
+    private final Lock[] stripes = new Lock[STRIPES];
+    private final ReadWriteLock bulkLock = new ReentrantReadWriteLock();
+    private final Lock scheduleLock = new ReentrantLock();
+    private final AtomicInteger ids = new AtomicInteger(1);
+    // id задач, лежащих в индексе. Меняется под scheduleLock, а читается без него: для одного id
+    // членство меняется только под его полосой, поэтому держащий полосу видит актуальное значение.
+    // Задача могла потерять время прямо в объекте, поэтому смотреть на getStartTime() недостаточно.
+    private final Set<Integer> scheduled = ConcurrentHashMap.newKeySet();
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(historyManager, new VersionedMap<>(), new VersionedMap<>(), new VersionedMap<>());
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    protected int generateId() {
+        return ids.getAndIncrement();
+    }
+
+    @Override
+    protected int lastGeneratedId() {
+        return ids.get() - 1;
+    }
+
+    @Override
+    public void createTask(Task task) {
+        if (task == null) return;
+
+        bulkLock.readLock().lock();
+        try {
+            if (task.getStartTime() == null) {
+                task.setId(generateId());
+                tasks.put(task.getId(), task);
+                statusIndex.add(task);
+                return;
+            }
+
+            scheduleLock.lock();
+            try {
+                validateTaskTime(task);
+                task.setId(generateId());
+                tasks.put(task.getId(), task);
+                statusIndex.add(task);
+                schedule(task);
+            } finally {
+                scheduleLock.unlock();
+            }
+        } finally {
+            bulkLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        if (epic == null) return;
+
+        bulkLock.readLock().lock();
+        try {
+            epic.setId(generateId());
+            epics.put(epic.getId(), epic);
+            statusIndex.add(epic);
+        } finally {
+            bulkLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        if (subtask == null) return;
+
+        bulkLock.readLock().lock();
+        Lock stripe = stripe(subtask.getEpicId());
+        stripe.lock();
+        try {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null) {
+                throw new IllegalArgumentException("Epic with id " + subtask.getEpicId() + " not found");
+            }
+
+            if (subtask.getStartTime() == null) {
+                subtask.setId(generateId());
+                subtasks.put(subtask.getId(), subtask);
+            } else {
+                scheduleLock.lock();
+                try {
+                    validateTaskTime(subtask);
+                    subtask.setId(generateId());
+                    subtasks.put(subtask.getId(), subtask);
+                    schedule(subtask);
+                } finally {
+                    scheduleLock.unlock();
+                }
+            }
+            statusIndex.add(subtask);
+            epic.applySubtask(subtask);
+            updateEpicStatus(epic.getId());
+            updateEpicTimeFields(epic.getId());
+        } finally {
+            stripe.unlock();
+            bulkLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        if (task == null) return;
+
+        bulkLock.readLock().lock();
+        Lock stripe = stripe(task.getId());
+        stripe.lock();
+        try {
+            if (!tasks.containsKey(task.getId())) return;
+
+            reschedule(task, () -> tasks.put(task.getId(), task));
+            statusIndex.add(task);
+            historyManager.add(task);
+        } finally {
+            stripe.unlock();
+            bulkLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        if (epic == null) return;
+
+        bulkLock.readLock().lock();
+        Lock stripe = stripe(epic.getId());
+        stripe.lock();
+        try {
+            super.updateEpic(epic);
+        } finally {
+            stripe.unlock();
+            bulkLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        if (subtask == null) return;
+
+        bulkLock.readLock().lock();
+        try {
+            while (true) {
+                Subtask previous = subtasks.get(subtask.getId());
+                if (previous == null) return;
+
+                // При переносе в другой эпик нужны полосы обоих эпиков, берём их в порядке номеров
+                Lock first = stripe(previous.getEpicId());
+                Lock second = stripe(subtask.getEpicId());
+                if (stripeIndex(previous.getEpicId()) > stripeIndex(subtask.getEpicId())) {
+                    Lock swap = first;
+                    first = second;
+                    second = swap;
+                }
+                first.lock();
+                if (second != first) second.lock();
+                try {
+                    // Пока ждали, подзадачу могли перенести - тогда взяты не те полосы
+                    if (subtasks.get(subtask.getId()) != previous) continue;
+                    if (!epics.containsKey(subtask.getEpicId())) return;
+
+                    reschedule(subtask, () -> subtasks.put(subtask.getId(), subtask));
+                    statusIndex.add(subtask);
+                    Epic previousEpic = epics.get(previous.getEpicId());
+                    if (previous.getEpicId() != subtask.getEpicId() && previousEpic != null) {
+                        previousEpic.dropSubtask(subtask.getId());
+                        updateEpicStatus(previousEpic.getId());
+                        updateEpicTimeFields(previousEpic.getId());
+                    }
+                    epics.get(subtask.getEpicId()).applySubtask(subtask);
+                    updateEpicStatus(subtask.getEpicId());
+                    updateEpicTimeFields(subtask.getEpicId());
+                    return;
+                } finally {
+                    if (second != first) second.unlock();
+                    first.unlock();
+                }
+            }
+        } finally {
+            bulkLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        bulkLock.readLock().lock();
+        Lock stripe = stripe(id);
+        stripe.lock();
+        try {
+            if (tasks.remove(id) == null) return;
+
+            if (scheduled.contains(id)) {
+                unschedule(List.of(id));
+            }
+            statusIndex.remove(id);
+            historyManager.remove(id);
+        } finally {
+            stripe.unlock();
+            bulkLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteEpic(int epicId) {
+        bulkLock.readLock().lock();
+        Lock stripe = stripe(epicId);
+        stripe.lock();
+        try {
+            Epic epic = epics.remove(epicId);
+            if (epic == null) return;
+
+            List<Integer> subtaskIds = epic.getSubtaskIds();
+            subtaskIds.forEach(id -> {
+                subtasks.remove(id);
+                statusIndex.remove(id);
+                historyManager.remove(id);
+            });
+            unschedule(subtaskIds);
+            statusIndex.remove(epicId);
+            historyManager.remove(epicId);
+        } finally {
+            stripe.unlock();
+            bulkLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteSubtask(int subtaskId) {
+        bulkLock.readLock().lock();
+        try {
+            while (true) {
+                Subtask subtask = subtasks.get(subtaskId);
+                if (subtask == null) return;
+
+                Lock stripe = stripe(subtask.getEpicId());
+                stripe.lock();
+                try {
+                    // Пока ждали, подзадачу могли удалить или перенести в другой эпик - тогда взята не та полоса
+                    if (subtasks.get(subtaskId) != subtask) continue;
+
+                    Subtask removed = subtasks.remove(subtaskId);
+                    if (scheduled.contains(subtaskId)) {
+                        unschedule(List.of(subtaskId));
+                    }
+                    statusIndex.remove(subtaskId);
+                    historyManager.remove(subtaskId);
+                    Epic epic = epics.get(removed.getEpicId());
+                    if (epic != null) {
+                        epic.dropSubtask(subtaskId);
+                        updateEpicStatus(epic.getId());
+                        updateEpicTimeFields(epic.getId());
+                    }
+                    return;
+                } finally {
+                    stripe.unlock();
+                }
+            }
+        } finally {
+            bulkLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        exclusively(super::deleteAllTasks);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        exclusively(super::deleteAllEpics);
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        exclusively(super::deleteAllSubtasks);
+    }
+
+    // Пачка применяется атомарно, поэтому, как и массовые удаления, исключает все остальные операции
+    @Override
+    public void createTasks(List<Task> batch) {
+        exclusively(() -> super.createTasks(batch));
+    }
+
+    @Override
+    public void createSubtasks(List<Subtask> batch) {
+        exclusively(() -> super.createSubtasks(batch));
+    }
+
+    @Override
+    public void updateAll(List<? extends Task> batch) {
+        exclusively(() -> super.updateAll(batch));
+    }
+
+    @Override
+    public void deleteByIds(Collection<Integer> ids) {
+        exclusively(() -> super.deleteByIds(ids));
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return forgetIfDeleted(super.getTask(id), tasks);
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return forgetIfDeleted(super.getEpic(id), epics);
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return forgetIfDeleted(super.getSubtask(id), subtasks);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        scheduleLock.lock();
+        try {
+            return super.getPrioritizedTasks();
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedView() {
+        scheduleLock.lock();
+        try {
+            return super.getPrioritizedView();
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        scheduleLock.lock();
+        try {
+            return super.getTasksStartingBetween(from, to);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getTasksActiveAt(LocalDateTime instant) {
+        scheduleLock.lock();
+        try {
+            return super.getTasksActiveAt(instant);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getNextTasks(LocalDateTime instant, int limit) {
+        scheduleLock.lock();
+        try {
+            return super.getNextTasks(instant, limit);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(LocalDateTime earliest, Duration duration) {
+        scheduleLock.lock();
+        try {
+            return super.findFreeSlot(earliest, duration);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    // Между поиском мест и записью никто не должен занять найденные промежутки
+    @Override
+    public void autoSchedule(List<? extends Task> batch, LocalDateTime earliest) {
+        exclusively(() -> super.autoSchedule(batch, earliest));
+    }
+
+    // Список приоритетов нельзя обходить без scheduleLock, поэтому выборка по времени собирается
+    // под блокировкой целиком, а страница - только в свой размер. Выборка по id читает карты без блокировок
+    @Override
+    public Stream<Task> query(TaskQuery query) {
+        if (query.getOrder() != TaskQuery.Order.START_TIME) {
+            return super.query(query);
+        }
+        scheduleLock.lock();
+        try {
+            return super.query(query).collect(Collectors.toList()).stream();
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public TaskPage page(TaskQuery query, String cursor, int limit) {
+        if (query.getOrder() != TaskQuery.Order.START_TIME) {
+            return super.page(query, cursor, limit);
+        }
+        scheduleLock.lock();
+        try {
+            return super.page(query, cursor, limit);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean hasTimeConflict(Task task) {
+        scheduleLock.lock();
+        try {
+            return super.hasTimeConflict(task);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    private Lock stripe(int id) {
+        return stripes[stripeIndex(id)];
+    }
+
+    private int stripeIndex(int id) {
+        return Math.floorMod(id * 0x9E3779B9, STRIPES);
+    }
+
+    // Задача без времени - и до, и после изменения - индекс не трогает и общую блокировку не берёт
+    private void reschedule(Task updated, Runnable store) {
+        if (updated.getStartTime() == null && !scheduled.contains(updated.getId())) {
+            store.run();
+            return;
+        }
+
+        scheduleLock.lock();
+        try {
+            validateTaskTime(updated);
+            prioritizedTasks.remove(updated.getId());
+            scheduled.remove(updated.getId());
+            store.run();
+            if (updated.getStartTime() != null) {
+                schedule(updated);
+            }
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    // Чтение идёт без блокировки: задачу могли удалить между чтением карты и записью в историю.
+    // Удаление сначала убирает задачу из карты, потом из истории, поэтому повторная проверка
+    // после записи закрывает гонку
+    private <T extends Task> T forgetIfDeleted(T task, Map<Integer, ? extends Task> map) {
+        if (task != null && !map.containsKey(task.getId())) {
+            historyManager.remove(task.getId());
+        }
+        return task;
+    }
+
+    // Вызывается под scheduleLock
+    private void schedule(Task task) {
+        prioritizedTasks.add(task);
+        scheduled.add(task.getId());
+    }
+
+    private void unschedule(List<Integer> ids) {
+        scheduleLock.lock();
+        try {
+            ids.forEach(id -> {
+                prioritizedTasks.remove(id);
+                scheduled.remove(id);
+            });
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    private void exclusively(Runnable action) {
+        bulkLock.writeLock().lock();
+        scheduleLock.lock();
+        try {
+            action.run();
+            scheduled.clear();
+            prioritizedTasks.values().forEach(task -> scheduled.add(task.getId()));
+        } finally {
+            scheduleLock.unlock();
+            bulkLock.writeLock().unlock();
+        }
+    }
+
+    private void validateTaskTime(Task task) {
+        if (super.hasTimeConflict(task)) {
+            throw new TimeConflictException("Новая задача пересекается по времени с существующей");
+        }
+    }
+
+    // Номер версии поднимается после изменения карты, а снимок читает его до копирования,
+    // поэтому изменение во время копирования не даст закэшировать устаревший список.
+    // Карта оборачивает ConcurrentHashMap, а не наследует его: любое изменение, в том числе
+    // через итераторы и составные операции, проходит здесь и поднимает версию
+    private static class VersionedMap<V> extends AbstractMap<Integer, V> implements IntMap<V>, Versioned {
+        private final ConcurrentHashMap<Integer, V> map = new ConcurrentHashMap<>();
+        private final AtomicLong version = new AtomicLong();
+        private final Set<Entry<Integer, V>> entries = new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, V>> iterator() {
+                Iterator<Entry<Integer, V>> iterator = map.entrySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<Integer, V> next() {
+                        Entry<Integer, V> entry = iterator.next();
+                        return new SimpleEntry<>(entry) {
+                            @Override
+                            public V setValue(V value) {
+                                super.setValue(value);
+                                return changed(map.put(getKey(), value));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                        version.incrementAndGet();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+
+        // ConcurrentHashMap хранит ключи упакованными, так что int-перегрузки здесь только ради IntMap
+        @Override
+        public V get(int key) {
+            return map.get(key);
+        }
+
+        @Override
+        public boolean containsKey(int key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public V put(int key, V value) {
+            return changed(map.put(key, value));
+        }
+
+        @Override
+        public V remove(int key) {
+            return remove((Object) key);
+        }
+
+        @Override
+        public V get(Object key) {
+            return map.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public Set<Entry<Integer, V>> entrySet() {
+            return entries;
+        }
+
+        @Override
+        public V put(Integer key, V value) {
+            return changed(map.put(key, value));
+        }
+
+        @Override
+        public V remove(Object key) {
+            V previous = map.remove(key);
+            if (previous != null) version.incrementAndGet();
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+            version.incrementAndGet();
+        }
+
+        // Составные операции остаются атомарными, версия поднимается после любой из них
+        @Override
+        public V putIfAbsent(Integer key, V value) {
+            return changed(map.putIfAbsent(key, value));
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            return changed(map.remove(key, value));
+        }
+
+        @Override
+        public boolean replace(Integer key, V oldValue, V newValue) {
+            return changed(map.replace(key, oldValue, newValue));
+        }
+
+        @Override
+        public V replace(Integer key, V value) {
+            return changed(map.replace(key, value));
+        }
+
+        @Override
+        public V computeIfAbsent(Integer key, Function<? super Integer, ? extends V> mapping) {
+            return changed(map.computeIfAbsent(key, mapping));
+        }
+
+        @Override
+        public V computeIfPresent(Integer key, BiFunction<? super Integer, ? super V, ? extends V> remapping) {
+            return changed(map.computeIfPresent(key, remapping));
+        }
+
+        @Override
+        public V compute(Integer key, BiFunction<? super Integer, ? super V, ? extends V> remapping) {
+            return changed(map.compute(key, remapping));
+        }
+
+        @Override
+        public V merge(Integer key, V value, BiFunction<? super V, ? super V, ? extends V> remapping) {
+            return changed(map.merge(key, value, remapping));
+        }
+
+        @Override
+        public void replaceAll(BiFunction<? super Integer, ? super V, ? extends V> function) {
+            map.replaceAll(function);
+            version.incrementAndGet();
+        }
+
+        @Override
+        public long getVersion() {
+            return version.get();
+        }
+
+        private <R> R changed(R result) {
+            version.incrementAndGet();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package tracker.controllers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Построчное чтение файла без создания строки на каждую строку файла:
+// текущая строка - это диапазон [lineStart, lineEnd) в переиспользуемом буфере символов.
+public class CsvLineReader implements AutoCloseable {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private char[] buffer;
+    private int position;
+    private int limit;
+    private int lineStart;
+    private int lineEnd;
+    private boolean eof;
+
+    public CsvLineReader(Path path) throws IOException {
+        this(Files.newBufferedReader(path, StandardCharsets.UTF_8), DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvLineReader(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+    }
+
+    public boolean next() throws IOException {
+        while (true) {
+            for (int i = position; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    setLine(position, i);
+                    position = i + 1;
+                    return true;
+                }
+            }
+            if (eof) {
+                if (position == limit) return false;
+                setLine(position, limit);
+                position = limit;
+                return true;
+            }
+            fill();
+        }
+    }
+
+    public char[] buffer() {
+        return buffer;
+    }
+
+    public int lineStart() {
+        return lineStart;
+    }
+
+    public int lineEnd() {
+        return lineEnd;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void setLine(int start, int end) {
+        lineStart = start;
+        lineEnd = end > start && buffer[end - 1] == '\r' ? end - 1 : end;
+    }
+
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        } else if (remaining == buffer.length) {
+            // Строка длиннее буфера - расширяем
+            char[] larger = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, remaining);
+            buffer = larger;
+        }
+        position = 0;
+        limit = remaining;
+
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+}
@@ -7,233 +7,876 @@ import tracker.model.Task;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.HashMap;
-import java.util.Map;
-
-public class FileBackedTaskManager extends InMemoryTaskManager {
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
     private final File file;
+    private final FileStorageOptions options;
+    private final TaskJournal journal;
+    private final TaskCsvFormat csv = new TaskCsvFormat();
+    private boolean journalPending;
+    private ExecutorService compactionExecutor;
+    private CompletableFuture<Void> compaction;
+    // Отображённый снимок, пока карты задач не заполнены (режим LoadMode.LAZY)
+    private MappedSnapshot lazySnapshot;
+    // Поток отложенной записи снимка; null, если запись идёт прямо в мутации
+    private final SnapshotWriter writer;
 
     public FileBackedTaskManager(HistoryManager historyManager, File file) {
+        this(historyManager, file, FileStorageOptions.snapshot());
+    }
+
+    public FileBackedTaskManager(HistoryManager historyManager, File file, FileStorageOptions options) {
+        this(historyManager, file, options, true);
+    }
+
+    private FileBackedTaskManager(HistoryManager historyManager, File file, FileStorageOptions options, boolean fresh) {
         super(historyManager);
         this.file = file;
+        this.options = options;
+        this.journal = new TaskJournal(TaskJournal.pathFor(file), options);
+        this.writer = options.isWriteBehind() && !options.isJournaled()
+                ? new SnapshotWriter("snapshot-writer", this::captureSnapshot, options.getWriteBehindMaxPending()) : null;
+        // Новый менеджер в режиме журнала начинает с пустого снимка, как и обычный при первом сохранении
+        if (fresh && options.isJournaled()) {
+            save();
+        }
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(new InMemoryHistoryManager(), file);
+        return loadFromFile(file, FileStorageOptions.snapshot());
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, FileStorageOptions options) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(new InMemoryHistoryManager(), file, options, false);
 
+        ForkJoinPool pool = options.getLoadParallelism() > 1 ? new ForkJoinPool(options.getLoadParallelism()) : null;
         try {
-            String content = Files.readString(file.toPath());
-            String[] lines = content.split("\n");
-
-            if (lines.length > 1) {
-                Map<Integer, Task> tasks = new HashMap<>();
-                Map<Integer, Epic> epics = new HashMap<>();
-                Map<Integer, Subtask> subtasks = new HashMap<>();
-                int maxId = 0;
-
-                // Единый проход для загрузки всех задач и связывания подзадач
-                for (int i = 1; i < lines.length; i++) {
-                    Task task = manager.fromString(lines[i]);
-                    if (task == null) continue;
-
-                    if (task.getId() > maxId) {
-                        maxId = task.getId();
+            // В режиме журнала снимка может ещё не быть - тогда всё состояние лежит в журнале
+            if (!options.isJournaled() || file.exists()) {
+                if (TaskBinaryFormat.isBinary(file.toPath())) {
+                    // Двоичные записи разбираются быстрее, чем делятся между потоками
+                    if (options.getLoadMode() == FileStorageOptions.LoadMode.STREAMED) {
+                        TaskBinaryFormat.read(file.toPath(), manager::restoreTask);
+                    } else {
+                        MappedSnapshot snapshot = MappedSnapshot.open(file.toPath());
+                        // Записи журнала меняют состояние, поэтому с журналом откладывать загрузку нельзя
+                        if (options.getLoadMode() == FileStorageOptions.LoadMode.LAZY && !manager.journal.exists()) {
+                            manager.lazySnapshot = snapshot;
+                            manager.nextId = snapshot.getMaxId() + 1;
+                            return manager;
+                        }
+                        snapshot.forEach(manager::restoreTask);
+                        snapshot.close();
                     }
+                } else if (pool != null) {
+                    manager.restoreSnapshot(pool);
+                } else {
+                    manager.restoreSnapshot();
+                }
+            }
 
-                    switch (task.getType()) {
-                        case TASK:
-                            tasks.put(task.getId(), task);
-                            manager.prioritizedTasks.add(task);
-                            break;
-                        case EPIC:
-                            epics.put(task.getId(), (Epic) task);
-                            break;
-                        case SUBTASK:
-                            Subtask subtask = (Subtask) task;
-                            subtasks.put(subtask.getId(), subtask);
-                            manager.prioritizedTasks.add(subtask);
-
-                            // Сразу связываем подзадачу с эпиком
-                            Epic epic = epics.get(subtask.getEpicId());
-                            if (epic != null) {
-                                epic.addSubtaskId(subtask.getId());
-                            }
-                            break;
-                    }
+            manager.journalPending = manager.journal.exists();
+            manager.journal.replay(manager::restoreRecord);
+            manager.finishRestore();
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+
+        return manager;
+    }
+
+    // Переписывает снимок в другом формате; задачи переносятся как есть, без проверок менеджера
+    public static void convert(File source, File target, FileStorageOptions.Format format) {
+        List<Task> view = new ArrayList<>();
+        readSnapshot(source.toPath(), view::add);
+        writeAtomically(target.toPath(), encode(view, format), true);
+    }
+
+    protected void save() {
+        writeSnapshot(snapshotView());
+
+        // Снимок уже содержит всё, что было в журнале
+        if (options.isJournaled() || journalPending) {
+            journal.clear();
+            journalPending = false;
+        }
+    }
+
+    // Запускает сжатие журнала: снимок пишется в фоне из списка ссылок, снятого в момент вызова.
+    // Записи, сделанные после ротации, попадают в новый журнал и проигрываются поверх этого снимка.
+    public synchronized CompletableFuture<Void> compact() {
+        materialize();
+        if (writer != null) {
+            writer.changed();
+            return writer.barrier();
+        }
+        if (!options.isJournaled()) {
+            save();
+            return CompletableFuture.completedFuture(null);
+        }
+        if (compaction != null && !compaction.isDone()) {
+            return compaction;
+        }
+
+        List<Task> view = snapshotView();
+        long segment = journal.rotate();
+        compaction = CompletableFuture.runAsync(() -> {
+            writeSnapshot(view);
+            journal.deleteSegmentsUpTo(segment);
+        }, compactionExecutor());
+        compaction.whenComplete((ignored, e) -> {
+            // Сегменты остаются на диске и будут проиграны при загрузке, данные не теряются
+            if (e != null) System.err.println("Ошибка сжатия журнала: " + e.getMessage());
+        });
+        return compaction;
+    }
+
+    // Завершается, когда на диске окажутся все изменения, сделанные до вызова.
+    // Без отложенной записи мутация сохраняет сама, и будущее уже завершено
+    public CompletableFuture<Void> persisted() {
+        return writer != null ? writer.barrier() : CompletableFuture.completedFuture(null);
+    }
+
+    // Принудительно сбрасывает накопленную пачку журнала или дожидается отложенной записи снимка
+    public void flush() {
+        journal.flush();
+        if (writer != null) {
+            try {
+                writer.barrier().join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof ManagerSaveException) throw (ManagerSaveException) e.getCause();
+                throw new ManagerSaveException("Ошибка сохранения в файл", e.getCause());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (writer != null) {
+            writer.close();
+        }
+        if (compaction != null) {
+            compaction.exceptionally(e -> null).join();
+        }
+        if (compactionExecutor != null) {
+            compactionExecutor.shutdown();
+        }
+        journal.close();
+        if (lazySnapshot != null) {
+            lazySnapshot.close();
+        }
+    }
+
+    // Файл читается потоково: в памяти одновременно только буфер чтения и уже разобранные задачи
+    private void restoreSnapshot() {
+        readCsv(file.toPath(), csv, this::restoreTask);
+    }
+
+    private static void readSnapshot(Path path, Consumer<Task> consumer) {
+        if (TaskBinaryFormat.isBinary(path)) {
+            TaskBinaryFormat.read(path, consumer);
+        } else {
+            readCsv(path, new TaskCsvFormat(), consumer);
+        }
+    }
+
+    private static void readCsv(Path path, TaskCsvFormat format, Consumer<Task> consumer) {
+        try (CsvLineReader reader = new CsvLineReader(path)) {
+            boolean header = true;
+            while (reader.next()) {
+                if (header) {
+                    header = false;
+                    continue;
+                }
+                Task task = format.parse(reader.buffer(), reader.lineStart(), reader.lineEnd());
+                if (task != null) {
+                    consumer.accept(task);
                 }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка загрузки из файла", e);
+        }
+    }
 
-                manager.tasks.putAll(tasks);
-                manager.epics.putAll(epics);
-                manager.subtasks.putAll(subtasks);
-                manager.nextId = maxId + 1;
+    // Куски файла разбираются параллельно, а применяются по порядку: эпики в снимке идут раньше подзадач
+    private void restoreSnapshot(ForkJoinPool pool) {
+        try {
+            List<Callable<List<Task>>> parsers = new ArrayList<>();
+            for (FileChunk chunk : FileChunk.split(file.toPath(), pool.getParallelism() * 4)) {
+                parsers.add(() -> parseChunk(chunk));
+            }
+
+            for (Future<List<Task>> parsed : pool.invokeAll(parsers)) {
+                parsed.get().forEach(this::restoreTask);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка загрузки из файла", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ManagerSaveException) throw (ManagerSaveException) e.getCause();
+            throw new ManagerSaveException("Ошибка загрузки из файла", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Загрузка из файла прервана", e);
+        }
+    }
 
-                // Обновляем статусы и время для эпиков
-                for (Epic epic : epics.values()) {
-                    manager.updateEpicStatus(epic.getId());
-                    manager.updateEpicTimeFields(epic.getId());
+    private static List<Task> parseChunk(FileChunk chunk) {
+        TaskCsvFormat format = new TaskCsvFormat();
+        List<Task> parsed = new ArrayList<>();
+        try (CsvLineReader reader = new CsvLineReader(chunk.openReader(), 64 * 1024)) {
+            // Первая строка файла - заголовок
+            boolean header = chunk.getFrom() == 0;
+            while (reader.next()) {
+                if (header) {
+                    header = false;
+                    continue;
+                }
+                Task task = format.parse(reader.buffer(), reader.lineStart(), reader.lineEnd());
+                if (task != null) {
+                    parsed.add(task);
                 }
             }
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка загрузки из файла", e);
         }
+        return parsed;
+    }
 
-        return manager;
+    private List<Task> snapshotView() {
+        List<Task> view = new ArrayList<>(tasks.size() + epics.size() + subtasks.size());
+        view.addAll(tasks.values());
+        view.addAll(epics.values());
+        view.addAll(subtasks.values());
+        return view;
     }
 
-    protected void save() {
-        try {
-            StringBuilder builder = new StringBuilder();
-            builder.append("id,type,name,status,description,epic\n");
+    // Пишет снимок во временный файл и атомарно подменяет им основной
+    private void writeSnapshot(List<Task> view) {
+        writeAtomically(file.toPath(), encode(view, options.getFormat()), options.getDurability() != FileStorageOptions.Durability.OS_BUFFERED);
+    }
+
+    private static ByteBuffer encode(List<Task> view, FileStorageOptions.Format format) {
+        if (format == FileStorageOptions.Format.BINARY) {
+            TaskBinaryFormat binary = new TaskBinaryFormat();
+            binary.writeHeader();
+            view.forEach(binary::write);
+            return binary.toByteBuffer();
+        }
 
-            getAllTasks().forEach(task -> builder.append(toString(task)).append("\n"));
-            getAllEpics().forEach(epic -> builder.append(toString(epic)).append("\n"));
-            getAllSubtasks().forEach(subtask -> builder.append(toString(subtask)).append("\n"));
+        StringBuilder builder = new StringBuilder();
+        builder.append(TaskCsvFormat.HEADER).append("\n");
+        view.forEach(task -> builder.append(TaskCsvFormat.format(task)).append("\n"));
+        return StandardCharsets.UTF_8.encode(CharBuffer.wrap(builder));
+    }
 
-            Files.writeString(file.toPath(), builder.toString());
+    private static void writeAtomically(Path target, ByteBuffer buffer, boolean force) {
+        try {
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (force) {
+                    channel.force(false);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка сохранения в файл", e);
         }
     }
 
-    private String toString(Task task) {
-        return String.join(",", String.valueOf(task.getId()), task.getType().name(), task.getName(), task.getStatus().name(), task.getDescription(), task instanceof Subtask ? String.valueOf(((Subtask) task).getEpicId()) : "", task.getStartTime() != null ? task.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "", task.getDuration() != null ? String.valueOf(task.getDuration().toMinutes()) : "");
+    // Вызывается потоком отложенной записи. Карты снимаются под монитором менеджера, как и меняются;
+    // поля самих задач кодируются уже без него, как и при сжатии журнала: задача, изменённая
+    // во время записи, отмечена заново и попадёт в следующий снимок
+    private Runnable captureSnapshot() {
+        List<Task> view;
+        boolean clearJournal;
+        synchronized (this) {
+            view = snapshotView();
+            clearJournal = journalPending;
+        }
+        return () -> {
+            writeSnapshot(view);
+            if (clearJournal) {
+                journal.clear();
+                synchronized (this) {
+                    journalPending = false;
+                }
+            }
+        };
     }
 
-    private Task fromString(String value) {
-        String[] parts = value.split(",");
-        if (parts.length < 5) return null;
+    private void saveSnapshot() {
+        if (writer != null) {
+            writer.changed();
+        } else {
+            save();
+        }
+    }
 
-        try {
-            int id = Integer.parseInt(parts[0]);
-            Task.Type type = Task.Type.valueOf(parts[1]);
-            String name = parts[2];
-            Task.Status status = Task.Status.valueOf(parts[3]);
-            String description = parts[4];
+    // Мутация идёт под монитором менеджера, чтобы поток записи не снял карты посреди изменения.
+    // Ожидание писателя - уже после выхода из монитора, иначе он не сможет снять состояние
+    private void mutate(Runnable mutation) {
+        synchronized (this) {
+            materialize();
+            mutation.run();
+        }
+        if (writer != null) {
+            writer.awaitCapacity();
+        }
+    }
 
-            LocalDateTime startTime = null;
-            Duration duration = null;
+    private ExecutorService compactionExecutor() {
+        if (compactionExecutor == null) {
+            compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-compaction");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return compactionExecutor;
+    }
 
-            if (parts.length > 6 && !parts[6].isEmpty()) {
-                startTime = LocalDateTime.parse(parts[6], DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-            }
+    private void saveChanged(Task task) {
+        if (!options.isJournaled()) {
+            saveSnapshot();
+        } else if (task != null && isStored(task)) {
+            appendRecord("U," + TaskCsvFormat.format(task));
+        }
+    }
 
-            if (parts.length > 7 && !parts[7].isEmpty()) {
-                duration = Duration.ofMinutes(Long.parseLong(parts[7]));
+    private void saveDeleted(int id) {
+        if (!options.isJournaled()) {
+            saveSnapshot();
+        } else {
+            appendRecord("D," + id);
+        }
+    }
+
+    private void saveCleared(Task.Type type) {
+        if (!options.isJournaled()) {
+            saveSnapshot();
+        } else {
+            appendRecord("C," + type.name());
+        }
+    }
+
+    // Пакетная операция сохраняется один раз: снимком или одной пачкой записей журнала
+    private void saveChangedAll(List<? extends Task> batch) {
+        if (!options.isJournaled()) {
+            saveSnapshot();
+            return;
+        }
+
+        List<String> records = new ArrayList<>();
+        for (Task task : batch) {
+            if (task != null && isStored(task)) {
+                records.add("U," + TaskCsvFormat.format(task));
             }
+        }
+        appendRecords(records);
+    }
+
+    // Только id, которые действительно были удалены
+    private void saveDeletedAll(Collection<Integer> ids) {
+        if (!options.isJournaled()) {
+            saveSnapshot();
+            return;
+        }
+
+        List<String> records = new ArrayList<>();
+        for (Integer id : ids) {
+            records.add("D," + id);
+        }
+        appendRecords(records);
+    }
 
-            switch (type) {
-                case TASK:
-                    Task task = new Task(name, description);
-                    task.setId(id);
-                    task.setStatus(status);
-                    if (startTime != null) task.setStartTime(startTime);
-                    if (duration != null) task.setDuration(duration);
-                    return task;
-
-                case EPIC:
-                    Epic epic = new Epic(name, description);
-                    epic.setId(id);
-                    epic.setStatus(status);
-                    // Для эпика время рассчитывается автоматически из подзадач
-                    return epic;
-
-                case SUBTASK:
-                    if (parts.length < 6) return null;
-                    int epicId = Integer.parseInt(parts[5]);
-                    Subtask subtask = new Subtask(name, description, epicId);
-                    subtask.setId(id);
-                    subtask.setStatus(status);
-                    if (startTime != null) subtask.setStartTime(startTime);
-                    if (duration != null) subtask.setDuration(duration);
-                    return subtask;
+    private void appendRecord(String record) {
+        appendRecords(List.of(record));
+    }
+
+    private void appendRecords(List<String> records) {
+        journal.appendAll(records);
+
+        long maxRecords = options.getCompactionRecords();
+        long maxBytes = options.getCompactionBytes();
+        if ((maxRecords > 0 && journal.getRecordCount() >= maxRecords) || (maxBytes > 0 && journal.getSize() >= maxBytes)) {
+            compact();
+        }
+    }
+
+    private boolean isStored(Task task) {
+        int id = task.getId();
+        return tasks.get(id) == task || epics.get(id) == task || subtasks.get(id) == task;
+    }
+
+    private void restoreRecord(String record) {
+        int separator = record.indexOf(',');
+        if (separator < 0) return;
+
+        String payload = record.substring(separator + 1);
+        try {
+            switch (record.substring(0, separator)) {
+                case "U":
+                    Task task = csv.parse(payload);
+                    if (task != null) {
+                        restoreTask(task);
+                    }
+                    break;
+                case "D":
+                    restoreDeleted(Integer.parseInt(payload));
+                    break;
+                case "C":
+                    restoreCleared(Task.Type.valueOf(payload));
+                    break;
+                default:
+                    System.err.println("Ошибка: неизвестная запись журнала - " + record);
             }
-        } catch (NumberFormatException e) {
-            System.err.println("Ошибка: неверный числовой формат - " + e.getMessage());
-        } catch (DateTimeParseException e) {
-            System.err.println("Ошибка формата даты - " + e.getMessage());
         } catch (IllegalArgumentException e) {
-            System.err.println("Ошибка: неверное значение enum - " + e.getMessage());
-        } catch (Exception e) {
-            System.err.println("Неизвестная ошибка при разборе строки: " + e.getMessage());
+            System.err.println("Ошибка: повреждённая запись журнала - " + record);
+        }
+    }
+
+    private void restoreTask(Task task) {
+        int id = task.getId();
+        tasks.remove(id);
+        Epic previousEpic = epics.remove(id);
+        unlinkSubtask(subtasks.remove(id));
+
+        switch (task.getType()) {
+            case TASK:
+                tasks.put(id, task);
+                break;
+            case EPIC:
+                Epic epic = (Epic) task;
+                if (previousEpic != null) {
+                    epic.takeSubtasksFrom(previousEpic);
+                }
+                epics.put(id, epic);
+                break;
+            case SUBTASK:
+                Subtask subtask = (Subtask) task;
+                Epic parent = epics.get(subtask.getEpicId());
+                // Подзадача без эпика не может существовать - например, эпик уже удалён
+                if (parent != null) {
+                    subtasks.put(id, subtask);
+                    parent.applySubtask(subtask);
+                }
+                break;
+        }
+    }
+
+    private void restoreDeleted(int id) {
+        tasks.remove(id);
+        unlinkSubtask(subtasks.remove(id));
+        Epic epic = epics.remove(id);
+        if (epic != null) {
+            epic.forEachSubtaskId(subtasks::remove);
+        }
+    }
+
+    private void restoreCleared(Task.Type type) {
+        switch (type) {
+            case TASK:
+                tasks.clear();
+                break;
+            case EPIC:
+                epics.clear();
+                subtasks.clear();
+                break;
+            case SUBTASK:
+                subtasks.clear();
+                epics.values().forEach(Epic::clearSubtasks);
+                break;
+        }
+    }
+
+    private void unlinkSubtask(Subtask subtask) {
+        if (subtask == null) return;
+
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic != null) {
+            epic.dropSubtask(subtask.getId());
+        }
+    }
+
+    private void finishRestore() {
+        int maxId = 0;
+        // Восстановление кладёт задачи прямо в карты, индексы строятся один раз в конце
+        for (Task task : tasks.values()) {
+            maxId = Math.max(maxId, task.getId());
+            prioritizedTasks.add(task);
+            statusIndex.add(task);
         }
-        return null;
+        for (Subtask subtask : subtasks.values()) {
+            maxId = Math.max(maxId, subtask.getId());
+            prioritizedTasks.add(subtask);
+            statusIndex.add(subtask);
+        }
+        // Агрегаты эпиков уже собраны при восстановлении через applySubtask и dropSubtask,
+        // остаётся перенести их в поля эпика - без обхода подзадач
+        for (Epic epic : epics.values()) {
+            maxId = Math.max(maxId, epic.getId());
+            updateEpicStatus(epic.getId());
+            updateEpicTimeFields(epic.getId());
+        }
+        nextId = maxId + 1;
+    }
+
+    // Заполняет карты из отображённого снимка; уже прочитанные задачи остаются теми же объектами
+    private void materialize() {
+        if (lazySnapshot == null) return;
+
+        MappedSnapshot snapshot = lazySnapshot;
+        lazySnapshot = null;
+        snapshot.forEach(task -> {
+            Task touched = task.getType() == Task.Type.TASK ? tasks.get(task.getId()) : task.getType() == Task.Type.SUBTASK ? subtasks.get(task.getId()) : null;
+            restoreTask(touched != null ? touched : task);
+        });
+        snapshot.close();
+        finishRestore();
+    }
+
+    // До заполнения карт одиночная задача читается прямо из отображения и запоминается
+    private void touch(int id, Task.Type type) {
+        if (lazySnapshot == null || tasks.containsKey(id) || subtasks.containsKey(id) || lazySnapshot.typeOf(id) != type) return;
+
+        Task task = lazySnapshot.read(id);
+        if (task instanceof Subtask) {
+            subtasks.put(id, (Subtask) task);
+        } else if (task != null) {
+            tasks.put(id, task);
+        }
+    }
+
+    @Override
+    public Task getTask(int id) {
+        touch(id, Task.Type.TASK);
+        return super.getTask(id);
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        touch(id, Task.Type.SUBTASK);
+        return super.getSubtask(id);
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        materialize();
+        return super.getEpic(id);
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        materialize();
+        return super.getAllTasks();
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        materialize();
+        return super.getAllEpics();
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        materialize();
+        return super.getAllSubtasks();
+    }
+
+    // До заполнения карт размеры берутся из индекса снимка, чтобы опрос метрик не загружал задачи
+    @Override
+    public int getTaskCount() {
+        MappedSnapshot snapshot = lazySnapshot;
+        return snapshot != null ? snapshot.count(Task.Type.TASK) : super.getTaskCount();
+    }
+
+    @Override
+    public int getEpicCount() {
+        MappedSnapshot snapshot = lazySnapshot;
+        return snapshot != null ? snapshot.count(Task.Type.EPIC) : super.getEpicCount();
+    }
+
+    @Override
+    public int getSubtaskCount() {
+        MappedSnapshot snapshot = lazySnapshot;
+        return snapshot != null ? snapshot.count(Task.Type.SUBTASK) : super.getSubtaskCount();
+    }
+
+    @Override
+    public int getPrioritizedCount() {
+        MappedSnapshot snapshot = lazySnapshot;
+        return snapshot != null ? snapshot.getScheduledCount() : super.getPrioritizedCount();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        materialize();
+        return super.getPrioritizedTasks();
+    }
+
+    @Override
+    public List<Task> getTasksView() {
+        materialize();
+        return super.getTasksView();
+    }
+
+    @Override
+    public List<Epic> getEpicsView() {
+        materialize();
+        return super.getEpicsView();
+    }
+
+    @Override
+    public List<Subtask> getSubtasksView() {
+        materialize();
+        return super.getSubtasksView();
+    }
+
+    @Override
+    public List<Task> getPrioritizedView() {
+        materialize();
+        return super.getPrioritizedView();
+    }
+
+    @Override
+    public Stream<Task> query(TaskQuery query) {
+        materialize();
+        return super.query(query);
+    }
+
+    @Override
+    public TaskPage page(TaskQuery query, String cursor, int limit) {
+        materialize();
+        return super.page(query, cursor, limit);
+    }
+
+    @Override
+    public List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        materialize();
+        return super.getTasksStartingBetween(from, to);
+    }
+
+    @Override
+    public List<Task> getTasksActiveAt(LocalDateTime instant) {
+        materialize();
+        return super.getTasksActiveAt(instant);
+    }
+
+    @Override
+    public List<Task> getNextTasks(LocalDateTime instant, int limit) {
+        materialize();
+        return super.getNextTasks(instant, limit);
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(LocalDateTime earliest, Duration duration) {
+        materialize();
+        return super.findFreeSlot(earliest, duration);
+    }
+
+    // Изменения сохраняют вложенные пакетные операции
+    @Override
+    public void autoSchedule(List<? extends Task> batch, LocalDateTime earliest) {
+        materialize();
+        super.autoSchedule(batch, earliest);
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Task.Type type, Task.Status status) {
+        materialize();
+        return super.getTasksByStatus(type, status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpic(int epicId, Task.Status status) {
+        materialize();
+        return super.getSubtasksByEpic(epicId, status);
+    }
+
+    @Override
+    public int countByStatus(Task.Type type, Task.Status status) {
+        materialize();
+        return super.countByStatus(type, status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpic(int epicId) {
+        materialize();
+        return super.getSubtasksByEpic(epicId);
+    }
+
+    @Override
+    public boolean hasTimeConflict(Task task) {
+        materialize();
+        return super.hasTimeConflict(task);
     }
 
     @Override
     public void createTask(Task task) {
-        super.createTask(task);
-        save();
+        mutate(() -> {
+            super.createTask(task);
+            saveChanged(task);
+        });
     }
 
     @Override
     public void createEpic(Epic epic) {
-        super.createEpic(epic);
-        save();
+        mutate(() -> {
+            super.createEpic(epic);
+            saveChanged(epic);
+        });
     }
 
     @Override
     public void createSubtask(Subtask subtask) {
-        super.createSubtask(subtask);
-        save();
+        mutate(() -> {
+            super.createSubtask(subtask);
+            saveChanged(subtask);
+        });
     }
 
     @Override
     public void updateTask(Task task) {
-        super.updateTask(task);
-        save();
+        mutate(() -> {
+            super.updateTask(task);
+            saveChanged(task);
+        });
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        super.updateEpic(epic);
-        save();
+        mutate(() -> {
+            super.updateEpic(epic);
+            saveChanged(epic);
+        });
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        super.updateSubtask(subtask);
-        save();
+        mutate(() -> {
+            super.updateSubtask(subtask);
+            saveChanged(subtask);
+        });
     }
 
     @Override
     public void deleteTask(int id) {
-        super.deleteTask(id);
-        save();
+        mutate(() -> {
+            // Запись "D" при восстановлении удаляет id из всех карт, поэтому пишется только настоящее удаление
+            boolean stored = tasks.containsKey(id);
+            super.deleteTask(id);
+            if (stored) saveDeleted(id);
+        });
     }
 
     @Override
     public void deleteEpic(int epicId) {
-        super.deleteEpic(epicId);
-        save();
+        mutate(() -> {
+            boolean stored = epics.containsKey(epicId);
+            super.deleteEpic(epicId);
+            if (stored) saveDeleted(epicId);
+        });
     }
 
     @Override
     public void deleteSubtask(int subtaskId) {
-        super.deleteSubtask(subtaskId);
-        save();
+        mutate(() -> {
+            boolean stored = subtasks.containsKey(subtaskId);
+            super.deleteSubtask(subtaskId);
+            if (stored) saveDeleted(subtaskId);
+        });
+    }
+
+    @Override
+    public void createTasks(List<Task> batch) {
+        mutate(() -> {
+            super.createTasks(batch);
+            if (batch != null) saveChangedAll(batch);
+        });
+    }
+
+    @Override
+    public void createSubtasks(List<Subtask> batch) {
+        mutate(() -> {
+            super.createSubtasks(batch);
+            if (batch != null) saveChangedAll(batch);
+        });
+    }
+
+    @Override
+    public void updateAll(List<? extends Task> batch) {
+        mutate(() -> {
+            super.updateAll(batch);
+            if (batch != null) saveChangedAll(batch);
+        });
+    }
+
+    @Override
+    public void deleteByIds(Collection<Integer> ids) {
+        mutate(() -> {
+            if (ids == null) return;
+
+            List<Integer> stored = new ArrayList<>();
+            for (Integer id : ids) {
+                if (id != null && (tasks.containsKey(id) || epics.containsKey(id) || subtasks.containsKey(id))) {
+                    stored.add(id);
+                }
+            }
+            super.deleteByIds(ids);
+            if (!stored.isEmpty()) saveDeletedAll(stored);
+        });
     }
 
     @Override
     public void deleteAllTasks() {
-        super.deleteAllTasks();
-        save();
+        mutate(() -> {
+            super.deleteAllTasks();
+            saveCleared(Task.Type.TASK);
+        });
     }
 
     @Override
     public void deleteAllEpics() {
-        super.deleteAllEpics();
-        save();
+        mutate(() -> {
+            super.deleteAllEpics();
+            saveCleared(Task.Type.EPIC);
+        });
     }
 
     @Override
     public void deleteAllSubtasks() {
-        super.deleteAllSubtasks();
-        save();
+        mutate(() -> {
+            super.deleteAllSubtasks();
+            saveCleared(Task.Type.SUBTASK);
+        });
     }
 }
 
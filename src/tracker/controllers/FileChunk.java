@@ -0,0 +1,103 @@
+package tracker.controllers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Диапазон байт файла [from, to), границы которого совпадают с началами строк.
+// Байт '\n' в UTF-8 не встречается внутри многобайтовых символов, поэтому резать файл можно прямо по байтам.
+public class FileChunk {
+    private final Path path;
+    private final long from;
+    private final long to;
+
+    private FileChunk(Path path, long from, long to) {
+        this.path = path;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static List<FileChunk> split(Path path, int count) throws IOException {
+        List<FileChunk> chunks = new ArrayList<>(count);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long step = Math.max(1, size / Math.max(1, count));
+            long start = 0;
+            while (start < size) {
+                long end = start + step >= size ? size : nextLineStart(channel, start + step);
+                chunks.add(new FileChunk(path, start, end));
+                start = end;
+            }
+        }
+        return chunks;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public Reader openReader() throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        return new InputStreamReader(new RangeInputStream(channel, from, to), StandardCharsets.UTF_8);
+    }
+
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+        long size = channel.size();
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RangeInputStream(FileChannel channel, long position, long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (position >= end) return -1;
+
+            int limit = (int) Math.min(length, end - position);
+            int read = channel.read(ByteBuffer.wrap(bytes, offset, limit), position);
+            if (read > 0) position += read;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package tracker.controllers;
+
+// Настройки хранения FileBackedTaskManager
+public class FileStorageOptions {
+    public static final long DEFAULT_COMPACTION_RECORDS = 100_000;
+    public static final long DEFAULT_COMPACTION_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_GROUP_COMMIT_MILLIS = 10;
+    public static final int DEFAULT_GROUP_COMMIT_RECORDS = 256;
+    public static final int DEFAULT_WRITE_BEHIND_MAX_PENDING = 10_000;
+
+    // SYNC - fsync после каждой записи, ничего не теряется;
+    // GROUP_COMMIT - записи копятся в памяти и сбрасываются одной записью с fsync раз в интервал
+    // или по набору пачки, при сбое теряется не больше одной пачки;
+    // OS_BUFFERED - запись без fsync, сохранность зависит от кэша ОС.
+    // Без журнала пакетировать нечего: GROUP_COMMIT для снимка работает как SYNC.
+    public enum Durability { SYNC, GROUP_COMMIT, OS_BUFFERED }
+
+    // Формат снимка при записи; при загрузке формат определяется по сигнатуре файла.
+    // Журнал всегда остаётся текстовым.
+    public enum Format { CSV, BINARY }
+
+    // Чтение двоичного снимка при загрузке: STREAMED - через буфер чтения;
+    // MAPPED - через отображение файла в память; LAZY - по отображению строится только индекс смещений,
+    // getTask и getSubtask читают задачу прямо из файла, а все карты заполняются при первой другой операции.
+    // CSV-снимок и непустой журнал всегда загружаются целиком.
+    public enum LoadMode { STREAMED, MAPPED, LAZY }
+
+    // В режиме журнала каждая мутация дописывает одну запись вместо перезаписи всего файла
+    private boolean journaled;
+    // Пороги фонового сжатия журнала в снимок; 0 - порог отключён
+    private long compactionRecords = DEFAULT_COMPACTION_RECORDS;
+    private long compactionBytes = DEFAULT_COMPACTION_BYTES;
+    private Durability durability = Durability.OS_BUFFERED;
+    private long groupCommitMillis = DEFAULT_GROUP_COMMIT_MILLIS;
+    private int groupCommitRecords = DEFAULT_GROUP_COMMIT_RECORDS;
+    // Число потоков для разбора снимка при загрузке; 1 - последовательная загрузка
+    private int loadParallelism = 1;
+    private Format format = Format.CSV;
+    private LoadMode loadMode = LoadMode.STREAMED;
+    // Отложенная запись снимка: мутация возвращается сразу после изменения в памяти, снимок пишет
+    // отдельный поток, см. FileBackedTaskManager.persisted(). В режиме журнала не действует -
+    // там запись короткая, а fsync пакетирует GROUP_COMMIT
+    private boolean writeBehind;
+    // Сколько изменений может ждать записи, прежде чем мутации начнут ждать писателя
+    private int writeBehindMaxPending = DEFAULT_WRITE_BEHIND_MAX_PENDING;
+
+    public static FileStorageOptions snapshot() {
+        return new FileStorageOptions();
+    }
+
+    public static FileStorageOptions binary() {
+        FileStorageOptions options = new FileStorageOptions();
+        options.setFormat(Format.BINARY);
+        return options;
+    }
+
+    public static FileStorageOptions journaled() {
+        FileStorageOptions options = new FileStorageOptions();
+        options.setJournaled(true);
+        return options;
+    }
+
+    public static FileStorageOptions writeBehind() {
+        FileStorageOptions options = new FileStorageOptions();
+        options.setWriteBehind(true);
+        return options;
+    }
+
+    public boolean isJournaled() {
+        return journaled;
+    }
+
+    public void setJournaled(boolean journaled) {
+        this.journaled = journaled;
+    }
+
+    public long getCompactionRecords() {
+        return compactionRecords;
+    }
+
+    public void setCompactionRecords(long compactionRecords) {
+        this.compactionRecords = compactionRecords;
+    }
+
+    public long getCompactionBytes() {
+        return compactionBytes;
+    }
+
+    public void setCompactionBytes(long compactionBytes) {
+        this.compactionBytes = compactionBytes;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public void setDurability(Durability durability) {
+        this.durability = durability;
+    }
+
+    public long getGroupCommitMillis() {
+        return groupCommitMillis;
+    }
+
+    public void setGroupCommitMillis(long groupCommitMillis) {
+        this.groupCommitMillis = groupCommitMillis;
+    }
+
+    public int getGroupCommitRecords() {
+        return groupCommitRecords;
+    }
+
+    public void setGroupCommitRecords(int groupCommitRecords) {
+        this.groupCommitRecords = groupCommitRecords;
+    }
+
+    public int getLoadParallelism() {
+        return loadParallelism;
+    }
+
+    public void setLoadParallelism(int loadParallelism) {
+        this.loadParallelism = loadParallelism;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    public LoadMode getLoadMode() {
+        return loadMode;
+    }
+
+    public void setLoadMode(LoadMode loadMode) {
+        this.loadMode = loadMode;
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    public void setWriteBehind(boolean writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    public int getWriteBehindMaxPending() {
+        return writeBehindMaxPending;
+    }
+
+    public void setWriteBehindMaxPending(int writeBehindMaxPending) {
+        this.writeBehindMaxPending = writeBehindMaxPending;
+    }
+}
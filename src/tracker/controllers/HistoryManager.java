@@ -10,4 +10,10 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    // Неизменяемый снимок истории; пока история не менялась, возвращается тот же объект
+    List<Task> getHistoryView();
+
+    // Число задач в истории без копирования списка
+    int size();
 }
\ No newline at end of file
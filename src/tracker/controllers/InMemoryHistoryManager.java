@@ -1,12 +1,16 @@
 package tracker.controllers;
 
 import tracker.model.Task;
+import tracker.util.VersionedSnapshot;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class InMemoryHistoryManager implements HistoryManager {
+    public static final int UNBOUNDED = 0;
+
     private static class Node {
         Task task;
         Node prev;
@@ -20,15 +24,41 @@ public class InMemoryHistoryManager implements HistoryManager {
     }
 
     private final Map<Integer, Node> historyMap = new HashMap<>();
+    // Максимум задач в истории; UNBOUNDED - без ограничения
+    private final int capacity;
     private Node head;
     private Node tail;
+    private long version;
+    private final VersionedSnapshot<Task> view = new VersionedSnapshot<>();
+
+    public InMemoryHistoryManager() {
+        this(UNBOUNDED);
+    }
+
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Вместимость истории не может быть отрицательной: " + capacity);
+        }
+        this.capacity = capacity;
+    }
 
     @Override
     public void add(Task task) {
         if (task == null) return;
+        // Повторный просмотр последней задачи порядок не меняет - снимок остаётся прежним
+        if (tail != null && tail.task == task) return;
 
         remove(task.getId());
         linkLast(task);
+
+        // Голова списка - задача, которую дольше всех не просматривали
+        if (capacity != UNBOUNDED && historyMap.size() > capacity) {
+            remove(head.task.getId());
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
     }
 
     @Override
@@ -36,6 +66,7 @@ public class InMemoryHistoryManager implements HistoryManager {
         Node node = historyMap.remove(id);
         if (node != null) {
             removeNode(node);
+            version++;
         }
     }
 
@@ -50,6 +81,17 @@ public class InMemoryHistoryManager implements HistoryManager {
         return tasks;
     }
 
+    @Override
+    public List<Task> getHistoryView() {
+        List<Task> cached = view.get(version);
+        return cached != null ? cached : view.update(version, getHistory());
+    }
+
+    @Override
+    public int size() {
+        return historyMap.size();
+    }
+
     private void linkLast(Task task) {
         Node newNode = new Node(task, tail, null);
         if (tail == null) {
@@ -59,6 +101,7 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
         tail = newNode;
         historyMap.put(task.getId(), newNode);
+        version++;
     }
 
     private void removeNode(Node node) {
@@ -4,28 +4,56 @@ import tracker.exceptions.TimeConflictException;
 import tracker.model.Epic;
 import tracker.model.Subtask;
 import tracker.model.Task;
-import tracker.model.Task.Status;
+import tracker.util.IntHashMap;
+import tracker.util.IntMap;
+import tracker.util.Versioned;
+import tracker.util.VersionedSnapshot;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class InMemoryTaskManager implements TaskManager {
-    protected final Map<Integer, Task> tasks = new HashMap<>();
-    protected final Map<Integer, Epic> epics = new HashMap<>();
-    protected final Map<Integer, Subtask> subtasks = new HashMap<>();
+    // IntMap, а не Map: поиск по int id идёт через перегрузки без упаковки ключа
+    protected final IntMap<Task> tasks;
+    protected final IntMap<Epic> epics;
+    protected final IntMap<Subtask> subtasks;
     protected int nextId = 1;
-    private final HistoryManager historyManager;
-    protected final Set<Task> prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime, Comparator.nullsLast(Comparator.naturalOrder())));
+    protected final HistoryManager historyManager;
+    protected final TimeIntervalIndex prioritizedTasks = new TimeIntervalIndex();
+    protected final StatusIndex statusIndex = new StatusIndex();
+    private final VersionedSnapshot<Task> tasksView = new VersionedSnapshot<>();
+    private final VersionedSnapshot<Epic> epicsView = new VersionedSnapshot<>();
+    private final VersionedSnapshot<Subtask> subtasksView = new VersionedSnapshot<>();
+    private final VersionedSnapshot<Task> prioritizedView = new VersionedSnapshot<>();
 
     public InMemoryTaskManager(HistoryManager historyManager) {
+        // Ключи int хранятся без упаковки - заметно меньше памяти на задачу, чем у HashMap
+        this(historyManager, new IntHashMap<>(), new IntHashMap<>(), new IntHashMap<>());
+    }
+
+    // Наследники могут подставить свои реализации карт, например потокобезопасные
+    protected InMemoryTaskManager(HistoryManager historyManager, IntMap<Task> tasks, IntMap<Epic> epics, IntMap<Subtask> subtasks) {
         this.historyManager = historyManager;
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
     }
 
-    private int generateId() {
+    protected int generateId() {
         return nextId++;
     }
 
+    // Наибольший из выданных id - верхняя граница обхода по id
+    protected int lastGeneratedId() {
+        return nextId - 1;
+    }
+
     @Override
     public List<Task> getAllTasks() {
         return new ArrayList<>(tasks.values());
@@ -46,28 +74,32 @@ public class InMemoryTaskManager implements TaskManager {
         tasks.keySet().forEach(historyManager::remove);
         tasks.keySet().forEach(prioritizedTasks::remove);
         tasks.clear();
+        statusIndex.clear(Task.Type.TASK);
     }
 
     @Override
     public void deleteAllEpics() {
-        epics.values().stream().flatMap(epic -> epic.getSubtaskIds().stream()).forEach(id -> {
+        epics.values().forEach(epic -> epic.forEachSubtaskId(id -> {
             historyManager.remove(id);
-            prioritizedTasks.removeIf(task -> task.getId() == id);
-        });
+            prioritizedTasks.remove(id);
+        }));
         epics.keySet().forEach(historyManager::remove);
         epics.clear();
         subtasks.clear();
+        statusIndex.clear(Task.Type.EPIC);
+        statusIndex.clear(Task.Type.SUBTASK);
     }
 
     @Override
     public void deleteAllSubtasks() {
         subtasks.keySet().forEach(id -> {
             historyManager.remove(id);
-            prioritizedTasks.removeIf(task -> task.getId() == id);
+            prioritizedTasks.remove(id);
         });
         subtasks.clear();
+        statusIndex.clear(Task.Type.SUBTASK);
         epics.values().forEach(epic -> {
-            epic.getSubtaskIds().clear();
+            epic.clearSubtasks();
             updateEpicStatus(epic.getId());
             updateEpicTimeFields(epic.getId());
         });
@@ -101,8 +133,11 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteTask(int id) {
-        prioritizedTasks.removeIf(task -> task.getId() == id);
-        tasks.remove(id);
+        // Id эпика или подзадачи здесь ничего не удаляет и не трогает их индексы и историю
+        if (tasks.remove(id) == null) return;
+
+        prioritizedTasks.remove(id);
+        statusIndex.remove(id);
         historyManager.remove(id);
     }
 
@@ -110,11 +145,12 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteSubtask(int subtaskId) {
         Subtask subtask = subtasks.remove(subtaskId);
         if (subtask != null) {
-            prioritizedTasks.removeIf(task -> task.getId() == subtaskId);
+            prioritizedTasks.remove(subtaskId);
+            statusIndex.remove(subtaskId);
             historyManager.remove(subtaskId);
             Epic epic = epics.get(subtask.getEpicId());
             if (epic != null) {
-                epic.removeSubtaskId(subtaskId);
+                epic.dropSubtask(subtaskId);
                 updateEpicStatus(epic.getId());
                 updateEpicTimeFields(epic.getId());
             }
@@ -123,13 +159,19 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteEpic(int epicId) {
+        removeEpic(epicId);
+    }
+
+    private void removeEpic(int epicId) {
         Epic epic = epics.remove(epicId);
         if (epic != null) {
-            epic.getSubtaskIds().forEach(id -> {
+            epic.forEachSubtaskId(id -> {
                 subtasks.remove(id);
-                prioritizedTasks.removeIf(task -> task.getId() == id);
+                prioritizedTasks.remove(id);
+                statusIndex.remove(id);
                 historyManager.remove(id);
             });
+            statusIndex.remove(epicId);
             historyManager.remove(epicId);
         }
     }
@@ -141,6 +183,7 @@ public class InMemoryTaskManager implements TaskManager {
         task.setId(generateId());
         tasks.put(task.getId(), task);
         addToPrioritized(task);
+        statusIndex.add(task);
     }
 
     @Override
@@ -148,6 +191,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) return;
         epic.setId(generateId());
         epics.put(epic.getId(), epic);
+        statusIndex.add(epic);
     }
 
     @Override
@@ -159,8 +203,9 @@ public class InMemoryTaskManager implements TaskManager {
         validateTaskTime(subtask);
         subtask.setId(generateId());
         subtasks.put(subtask.getId(), subtask);
+        statusIndex.add(subtask);
         Epic epic = epics.get(subtask.getEpicId());
-        epic.addSubtaskId(subtask.getId());
+        epic.applySubtask(subtask);
         updateEpicStatus(epic.getId());
         updateEpicTimeFields(epic.getId());
         addToPrioritized(subtask);
@@ -170,92 +215,559 @@ public class InMemoryTaskManager implements TaskManager {
     public void updateTask(Task task) {
         if (task == null || !tasks.containsKey(task.getId())) return;
         validateTaskTime(task);
-        prioritizedTasks.removeIf(t -> t.getId() == task.getId());
+        prioritizedTasks.remove(task.getId());
         tasks.put(task.getId(), task);
         addToPrioritized(task);
+        statusIndex.add(task);
         historyManager.add(task);
     }
 
     @Override
     public void updateEpic(Epic updatedEpic) {
         if (updatedEpic == null || !epics.containsKey(updatedEpic.getId())) return;
+        // Подзадачи принадлежат эпику, а не переданному объекту - переносим их в новую версию
+        updatedEpic.takeSubtasksFrom(epics.get(updatedEpic.getId()));
         epics.put(updatedEpic.getId(), updatedEpic);
+        updateEpicStatus(updatedEpic.getId());
+        updateEpicTimeFields(updatedEpic.getId());
     }
 
     @Override
     public void updateSubtask(Subtask updatedSubtask) {
         if (updatedSubtask == null || !subtasks.containsKey(updatedSubtask.getId())) return;
         if (!epics.containsKey(updatedSubtask.getEpicId())) return;
-
-        subtasks.put(updatedSubtask.getId(), updatedSubtask);
+        validateTaskTime(updatedSubtask);
+
+        prioritizedTasks.remove(updatedSubtask.getId());
+        Subtask previous = subtasks.put(updatedSubtask.getId(), updatedSubtask);
+        addToPrioritized(updatedSubtask);
+        statusIndex.add(updatedSubtask);
+
+        // Подзадача перенесена в другой эпик
+        Epic previousEpic = epics.get(previous.getEpicId());
+        if (previous.getEpicId() != updatedSubtask.getEpicId() && previousEpic != null) {
+            previousEpic.dropSubtask(updatedSubtask.getId());
+            updateEpicStatus(previousEpic.getId());
+            updateEpicTimeFields(previousEpic.getId());
+        }
+        epics.get(updatedSubtask.getEpicId()).applySubtask(updatedSubtask);
         updateEpicStatus(updatedSubtask.getEpicId()); // Автоматическое обновление статуса
         updateEpicTimeFields(updatedSubtask.getEpicId());
     }
 
+    @Override
+    public void createTasks(List<Task> batch) {
+        List<Task> accepted = withoutNulls(batch);
+        validateBatch(accepted, id -> false);
+
+        for (Task task : accepted) {
+            task.setId(generateId());
+            tasks.put(task.getId(), task);
+            addToPrioritized(task);
+            statusIndex.add(task);
+        }
+    }
+
+    @Override
+    public void createSubtasks(List<Subtask> batch) {
+        List<Subtask> accepted = withoutNulls(batch);
+        for (Subtask subtask : accepted) {
+            if (!epics.containsKey(subtask.getEpicId())) {
+                throw new IllegalArgumentException("Epic with id " + subtask.getEpicId() + " not found");
+            }
+        }
+        validateBatch(accepted, id -> false);
+
+        Set<Integer> touched = new LinkedHashSet<>();
+        for (Subtask subtask : accepted) {
+            subtask.setId(generateId());
+            subtasks.put(subtask.getId(), subtask);
+            epics.get(subtask.getEpicId()).applySubtask(subtask);
+            addToPrioritized(subtask);
+            statusIndex.add(subtask);
+            touched.add(subtask.getEpicId());
+        }
+        touched.forEach(this::refreshEpic);
+    }
+
+    @Override
+    public void updateAll(List<? extends Task> batch) {
+        // Повтор id в пачке - побеждает последняя версия
+        Map<Integer, Task> accepted = new LinkedHashMap<>();
+        for (Task task : withoutNulls(batch)) {
+            if (isUpdatable(task)) {
+                accepted.put(task.getId(), task);
+            }
+        }
+        validateBatch(accepted.values(), accepted::containsKey);
+
+        Set<Integer> touched = new LinkedHashSet<>();
+        // Сначала эпики, чтобы подзадачи пачки учитывались уже в новых версиях эпиков
+        for (Task task : accepted.values()) {
+            if (task.getType() == Task.Type.EPIC) {
+                Epic epic = (Epic) task;
+                epic.takeSubtasksFrom(epics.get(epic.getId()));
+                epics.put(epic.getId(), epic);
+                touched.add(epic.getId());
+            }
+        }
+        for (Task task : accepted.values()) {
+            prioritizedTasks.remove(task.getId());
+            if (task.getType() == Task.Type.TASK) {
+                tasks.put(task.getId(), task);
+                addToPrioritized(task);
+                statusIndex.add(task);
+                historyManager.add(task);
+            } else if (task.getType() == Task.Type.SUBTASK) {
+                Subtask subtask = (Subtask) task;
+                Subtask previous = subtasks.put(subtask.getId(), subtask);
+                addToPrioritized(subtask);
+                statusIndex.add(subtask);
+                if (previous.getEpicId() != subtask.getEpicId() && epics.containsKey(previous.getEpicId())) {
+                    epics.get(previous.getEpicId()).dropSubtask(subtask.getId());
+                    touched.add(previous.getEpicId());
+                }
+                epics.get(subtask.getEpicId()).applySubtask(subtask);
+                touched.add(subtask.getEpicId());
+            }
+        }
+        touched.forEach(this::refreshEpic);
+    }
+
+    @Override
+    public void deleteByIds(Collection<Integer> ids) {
+        if (ids == null) return;
+
+        Set<Integer> touched = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            if (id == null) continue;
+
+            if (tasks.remove(id) != null) {
+                prioritizedTasks.remove(id);
+                statusIndex.remove(id);
+                historyManager.remove(id);
+            } else if (epics.containsKey(id)) {
+                removeEpic(id);
+            } else {
+                Subtask subtask = subtasks.remove(id);
+                if (subtask == null) continue;
+
+                prioritizedTasks.remove(id);
+                statusIndex.remove(id);
+                historyManager.remove(id);
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic != null) {
+                    epic.dropSubtask(id);
+                    touched.add(epic.getId());
+                }
+            }
+        }
+        // Эпик, из которого удалили несколько подзадач, пересчитывается один раз
+        touched.forEach(this::refreshEpic);
+    }
+
+    // Размеры хранилищ без копирования списков - для метрик
+    public int getTaskCount() {
+        return tasks.size();
+    }
+
+    public int getEpicCount() {
+        return epics.size();
+    }
+
+    public int getSubtaskCount() {
+        return subtasks.size();
+    }
+
+    public int getPrioritizedCount() {
+        return prioritizedTasks.size();
+    }
+
+    public int getHistorySize() {
+        return historyManager.size();
+    }
+
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+        return new ArrayList<>(prioritizedTasks.values());
+    }
+
+    // Неизменяемые снимки состава хранилищ. Пока хранилище не менялось, повторный вызов отдаёт
+    // тот же список без копирования. Снимок фиксирует набор задач, а не их поля: объекты задач общие
+    // с менеджером. Для карт без номера версии (например, HashMap) список собирается каждый раз
+    public List<Task> getTasksView() {
+        long version = versionOf(tasks);
+        List<Task> view = tasksView.get(version);
+        return view != null ? view : tasksView.update(version, new ArrayList<>(tasks.values()));
+    }
+
+    public List<Epic> getEpicsView() {
+        long version = versionOf(epics);
+        List<Epic> view = epicsView.get(version);
+        return view != null ? view : epicsView.update(version, new ArrayList<>(epics.values()));
+    }
+
+    public List<Subtask> getSubtasksView() {
+        long version = versionOf(subtasks);
+        List<Subtask> view = subtasksView.get(version);
+        return view != null ? view : subtasksView.update(version, new ArrayList<>(subtasks.values()));
+    }
+
+    public List<Task> getPrioritizedView() {
+        long version = prioritizedTasks.getVersion();
+        List<Task> view = prioritizedView.get(version);
+        return view != null ? view : prioritizedView.update(version, new ArrayList<>(prioritizedTasks.values()));
+    }
+
+    public List<Task> getHistoryView() {
+        return historyManager.getHistoryView();
+    }
+
+    // Ленивая выборка: задачи читаются из карт и списка приоритетов по мере потребления потока.
+    // Поток нельзя держать через изменения менеджера - как и итератор по его картам
+    public Stream<Task> query(TaskQuery query) {
+        return stream(query, null);
+    }
+
+    // Страница из не более чем limit задач после курсора (null - с начала). Читается limit + 1 задача:
+    // лишняя показывает, есть ли следующая страница
+    public TaskPage page(TaskQuery query, String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + limit);
+        }
+
+        List<Task> items = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<Task> iterator = stream(query, cursor).iterator();
+        while (items.size() < limit && iterator.hasNext()) {
+            items.add(iterator.next());
+        }
+        String next = iterator.hasNext() ? cursorOf(query.getOrder(), items.get(items.size() - 1)) : null;
+        return new TaskPage(items, next);
+    }
+
+    // Запросы к расписанию по индексу интервалов, O(log n + k); задачи без времени в расписании не участвуют
+    public List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Границы интервала должны быть заданы");
+        }
+        return prioritizedTasks.startingBetween(from, to);
+    }
+
+    public List<Task> getTasksActiveAt(LocalDateTime instant) {
+        if (instant == null) {
+            throw new IllegalArgumentException("Момент времени должен быть задан");
+        }
+        return prioritizedTasks.activeAt(instant);
+    }
+
+    public List<Task> getNextTasks(LocalDateTime instant, int limit) {
+        if (instant == null || limit < 0) {
+            throw new IllegalArgumentException("Нужны момент времени и неотрицательное число задач: " + instant + ", " + limit);
+        }
+        return prioritizedTasks.nextAfter(instant, limit);
+    }
+
+    // Начало первого промежутка длины duration не раньше earliest, куда задача встанет без пересечений
+    public LocalDateTime findFreeSlot(LocalDateTime earliest, Duration duration) {
+        if (earliest == null || duration == null || duration.isNegative()) {
+            throw new IllegalArgumentException("Нужны начало поиска и неотрицательная длительность: " + earliest + ", " + duration);
+        }
+        return prioritizedTasks.findFreeSlot(earliest, duration, id -> false);
+    }
+
+    // Ставит задачу в первый свободный промежуток не раньше earliest и создаёт её или, если она уже
+    // в менеджере, обновляет. Возвращает назначенное начало
+    public LocalDateTime scheduleTask(Task task, LocalDateTime earliest) {
+        if (task == null) {
+            throw new IllegalArgumentException("Задача для планирования не задана");
+        }
+        autoSchedule(List.of(task), earliest);
+        return task.getStartTime();
+    }
+
+    // Раскладывает задачи по порядку списка: каждая встаёт в первый свободный промежуток после
+    // предыдущей, поэтому весь список укладывается за один проход по расписанию. Длительность
+    // без значения считается нулевой. Новые задачи создаются, уже сохранённые переносятся -
+    // их прежние интервалы при поиске не учитываются. Эпики не планируются: их время считается по подзадачам
+    public void autoSchedule(List<? extends Task> batch, LocalDateTime earliest) {
+        if (earliest == null) {
+            throw new IllegalArgumentException("Начало поиска должно быть задано");
+        }
+
+        List<Task> accepted = withoutNulls(batch);
+        Set<Integer> moving = new HashSet<>();
+        for (Task task : accepted) {
+            if (task.getType() == Task.Type.EPIC) {
+                throw new IllegalArgumentException("Время эпика считается по подзадачам, эпик " + task.getId() + " не планируется");
+            }
+            if (task.getType() == Task.Type.SUBTASK && !epics.containsKey(((Subtask) task).getEpicId())) {
+                throw new IllegalArgumentException("Epic with id " + ((Subtask) task).getEpicId() + " not found");
+            }
+            if (isUpdatable(task)) {
+                moving.add(task.getId());
+            }
+        }
+
+        // Сначала все места, потом изменения: пока идёт поиск, расписание не меняется
+        List<LocalDateTime> starts = new ArrayList<>(accepted.size());
+        LocalDateTime cursor = earliest;
+        for (Task task : accepted) {
+            Duration duration = task.getDuration() != null ? task.getDuration() : Duration.ZERO;
+            LocalDateTime start = prioritizedTasks.findFreeSlot(cursor, duration, moving::contains);
+            starts.add(start);
+            cursor = start.plus(duration);
+        }
+
+        List<Task> moved = new ArrayList<>();
+        List<Task> created = new ArrayList<>();
+        List<Subtask> createdSubtasks = new ArrayList<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            Task task = accepted.get(i);
+            task.setStartTime(starts.get(i));
+            if (moving.contains(task.getId())) {
+                moved.add(task);
+            } else if (task.getType() == Task.Type.SUBTASK) {
+                createdSubtasks.add((Subtask) task);
+            } else {
+                created.add(task);
+            }
+        }
+        // Перенесённые освобождают старые интервалы раньше, чем новые задачи могут на них встать
+        if (!moved.isEmpty()) updateAll(moved);
+        if (!created.isEmpty()) createTasks(created);
+        if (!createdSubtasks.isEmpty()) createSubtasks(createdSubtasks);
+    }
+
+    // Выборки по индексу статусов стоят O(результата); порядок - порядок попадания в статус
+    public List<Task> getTasksByStatus(Task.Type type, Task.Status status) {
+        return statusIndex.find(type, status);
+    }
+
+    public List<Subtask> getSubtasksByEpic(int epicId, Task.Status status) {
+        return statusIndex.findSubtasks(epicId, status);
+    }
+
+    public int countByStatus(Task.Type type, Task.Status status) {
+        return statusIndex.count(type, status);
     }
 
     public List<Subtask> getSubtasksByEpic(int epicId) {
-        return epics.getOrDefault(epicId, new Epic("", "")).getSubtaskIds().stream().map(subtasks::get).filter(Objects::nonNull).collect(Collectors.toList());
+        Epic epic = epics.get(epicId);
+        if (epic == null) return new ArrayList<>();
+
+        List<Subtask> result = new ArrayList<>(epic.getSubtaskCount());
+        epic.forEachSubtaskId(id -> {
+            Subtask subtask = subtasks.get(id);
+            if (subtask != null) {
+                result.add(subtask);
+            }
+        });
+        return result;
     }
 
     protected void updateEpicStatus(int epicId) {
         Epic epic = epics.get(epicId);
         if (epic == null) return;
 
-        List<Subtask> subtasksList = getSubtasksByEpic(epicId);
-        if (subtasksList.isEmpty()) {
-            epic.setStatus(Status.NEW);
-            return;
+        // Эпик ведёт счётчики статусов подзадач, обходить их не нужно
+        epic.setStatus(epic.getSubtaskStatus());
+        statusIndex.add(epic);
+    }
+
+    protected void updateEpicTimeFields(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic != null) {
+            // Эпик ведёт агрегаты по времени подзадач, обходить их не нужно
+            epic.refreshTimeFields();
+        }
+    }
+
+    public boolean hasTimeConflict(Task task) {
+        return prioritizedTasks.hasOverlap(task);
+    }
+
+    private Stream<Task> stream(TaskQuery query, String cursor) {
+        if (query.getOrder() == TaskQuery.Order.START_TIME) {
+            Stream<Task> scheduled;
+            if (cursor == null) {
+                scheduled = prioritizedTasks.window(query.getFrom(), query.getTo());
+            } else {
+                String[] position = parseCursor(cursor, "t:").split("/");
+                try {
+                    scheduled = prioritizedTasks.windowAfter(decodeTime(position[0]), decodeTime(position[1]),
+                            Integer.parseInt(position[2]), query.getTo());
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Некорректный курсор: " + cursor, e);
+                }
+            }
+            // Время могли снять прямо в объекте задачи - у такой нет позиции для курсора
+            return scheduled.filter(task -> task.getStartTime() != null && query.matches(task));
         }
 
-        boolean allNew = subtasksList.stream().allMatch(subtask -> subtask.getStatus() == Status.NEW);
+        int after;
+        try {
+            after = cursor != null ? Integer.parseInt(parseCursor(cursor, "i:")) : 0;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor, e);
+        }
 
-        boolean allDone = subtasksList.stream().allMatch(subtask -> subtask.getStatus() == Status.DONE);
+        // С условием на статус кандидаты берутся из индекса статусов: сортировка результата дешевле обхода всех id
+        if (query.getStatus() != null) {
+            List<? extends Task> candidates = query.getEpicId() != null
+                    ? statusIndex.findSubtasks(query.getEpicId(), query.getStatus())
+                    : findByStatus(query.getType(), query.getStatus());
+            return candidates.stream()
+                    .filter(task -> task.getId() > after)
+                    .sorted(Comparator.comparingInt(Task::getId))
+                    .<Task>map(Task.class::cast)
+                    .filter(query::matches);
+        }
 
-        boolean anyInProgress = subtasksList.stream().anyMatch(subtask -> subtask.getStatus() == Status.IN_PROGRESS);
+        // Подзадачи одного эпика берутся из эпика, а не перебором всех id
+        if (query.getEpicId() != null) {
+            Epic epic = epics.get(query.getEpicId());
+            if (epic == null) return Stream.empty();
 
-        boolean hasNewAndDone = subtasksList.stream().anyMatch(subtask -> subtask.getStatus() == Status.NEW) && subtasksList.stream().anyMatch(subtask -> subtask.getStatus() == Status.DONE);
+            int[] ids = epic.getSubtaskIds().stream().mapToInt(Integer::intValue).filter(id -> id > after).sorted().toArray();
+            return Arrays.stream(ids).<Task>mapToObj(subtasks::get).filter(query::matches);
+        }
 
-        if (allDone) {
-            epic.setStatus(Status.DONE);
-        } else if (allNew) {
-            epic.setStatus(Status.NEW);
-        } else if (anyInProgress || hasNewAndDone) {
-            epic.setStatus(Status.IN_PROGRESS);
+        // Карта одного типа, заполненная по возрастанию id, обходится с курсора: страница трогает только свои задачи
+        Map<Integer, ? extends Task> ofType = mapOf(query.getType());
+        if (ofType instanceof IntHashMap && ((IntHashMap<? extends Task>) ofType).isAscending()) {
+            Iterator<? extends Task> rest = ((IntHashMap<? extends Task>) ofType).valuesAfter(after);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rest, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .<Task>map(Task.class::cast)
+                    .filter(query::matches);
         }
+
+        // Иначе id выдаются подряд, поэтому порядок по id - это перебор диапазона с поиском в картах
+        return IntStream.rangeClosed(after + 1, lastGeneratedId())
+                .mapToObj(id -> lookup(id, query.getType()))
+                .filter(query::matches);
     }
 
-    protected void updateEpicTimeFields(int epicId) {
-        Epic epic = epics.get(epicId);
-        if (epic != null) {
-            List<Subtask> subtasksList = getSubtasksByEpic(epicId);
-            epic.updateTimeFields(subtasksList);
+    private List<Task> findByStatus(Task.Type type, Task.Status status) {
+        if (type != null) return statusIndex.find(type, status);
+
+        List<Task> found = new ArrayList<>();
+        for (Task.Type each : Task.Type.values()) {
+            found.addAll(statusIndex.find(each, status));
         }
+        return found;
     }
 
-    private void addToPrioritized(Task task) {
-        Optional.ofNullable(task.getStartTime()).ifPresent(time -> prioritizedTasks.add(task));
+    private Map<Integer, ? extends Task> mapOf(Task.Type type) {
+        if (type == Task.Type.TASK) return tasks;
+        if (type == Task.Type.EPIC) return epics;
+        if (type == Task.Type.SUBTASK) return subtasks;
+        return null;
     }
 
-    private void validateTaskTime(Task newTask) {
-        Optional.ofNullable(newTask.getStartTime()).ifPresent(startTime -> {
-            boolean hasOverlap = prioritizedTasks.stream().filter(task -> task.getId() != newTask.getId()).anyMatch(existingTask -> isTimeOverlap(newTask, existingTask));
+    private Task lookup(int id, Task.Type type) {
+        if (type == Task.Type.TASK) return tasks.get(id);
+        if (type == Task.Type.EPIC) return epics.get(id);
+        if (type == Task.Type.SUBTASK) return subtasks.get(id);
+
+        Task task = tasks.get(id);
+        if (task == null) task = epics.get(id);
+        if (task == null) task = subtasks.get(id);
+        return task;
+    }
+
+    private static String cursorOf(TaskQuery.Order order, Task last) {
+        if (order == TaskQuery.Order.START_TIME) {
+            return "t:" + encodeTime(last.getStartTime()) + "/" + encodeTime(TimeIntervalIndex.endOf(last)) + "/" + last.getId();
+        }
+        return "i:" + last.getId();
+    }
+
+    // Время в курсоре - секунды и наносекунды эпохи: разбор LocalDateTime из текста в разы дороже самой страницы
+    private static String encodeTime(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) + "." + time.getNano();
+    }
+
+    private static LocalDateTime decodeTime(String encoded) {
+        int dot = encoded.indexOf('.');
+        return LocalDateTime.ofEpochSecond(Long.parseLong(encoded.substring(0, dot)), Integer.parseInt(encoded.substring(dot + 1)), ZoneOffset.UTC);
+    }
+
+    private static String parseCursor(String cursor, String prefix) {
+        if (!cursor.startsWith(prefix)) {
+            throw new IllegalArgumentException("Курсор от другого порядка выборки: " + cursor);
+        }
+        return cursor.substring(prefix.length());
+    }
+
+    private static long versionOf(Map<Integer, ? extends Task> map) {
+        return map instanceof Versioned ? ((Versioned) map).getVersion() : VersionedSnapshot.UNVERSIONED;
+    }
+
+    private void refreshEpic(int epicId) {
+        updateEpicStatus(epicId);
+        updateEpicTimeFields(epicId);
+    }
 
-            if (hasOverlap) {
-                throw new TimeConflictException("Новая задача пересекается по времени с существующей");
+    private boolean isUpdatable(Task task) {
+        switch (task.getType()) {
+            case TASK:
+                return tasks.containsKey(task.getId());
+            case EPIC:
+                return epics.containsKey(task.getId());
+            case SUBTASK:
+                return subtasks.containsKey(task.getId()) && epics.containsKey(((Subtask) task).getEpicId());
+            default:
+                return false;
+        }
+    }
+
+    // Проверка пачки за один проход: задачи со временем сортируются по началу, и каждая сверяется
+    // с самым поздним концом среди предыдущих, а с уже сохранёнными задачами - через индекс.
+    // Интервалы, которые пачка сама заменяет (ignored), при сверке с индексом не учитываются
+    protected void validateBatch(Collection<? extends Task> batch, IntPredicate ignored) {
+        List<Task> timed = new ArrayList<>();
+        for (Task task : batch) {
+            // Время эпика считается по его подзадачам, своего места в расписании у эпика нет
+            if (task.getStartTime() != null && task.getType() != Task.Type.EPIC) {
+                timed.add(task);
             }
-        });
+        }
+        timed.sort(Comparator.comparing(Task::getStartTime));
+
+        LocalDateTime latestEnd = null;
+        for (Task task : timed) {
+            if (latestEnd != null && latestEnd.isAfter(task.getStartTime())) {
+                throw new TimeConflictException("Задачи пачки пересекаются по времени друг с другом");
+            }
+            LocalDateTime end = TimeIntervalIndex.endOf(task);
+            if (latestEnd == null || end.isAfter(latestEnd)) {
+                latestEnd = end;
+            }
+            if (prioritizedTasks.findOverlap(task, ignored) != null) {
+                throw new TimeConflictException("Задача пачки пересекается по времени с существующей");
+            }
+        }
+    }
+
+    private static <T> List<T> withoutNulls(List<? extends T> batch) {
+        List<T> result = new ArrayList<>();
+        if (batch != null) {
+            for (T item : batch) {
+                if (item != null) {
+                    result.add(item);
+                }
+            }
+        }
+        return result;
     }
 
-    private boolean isTimeOverlap(Task task1, Task task2) {
-        LocalDateTime start1 = task1.getStartTime();
-        LocalDateTime end1 = task1.getEndTime();
-        LocalDateTime start2 = task2.getStartTime();
-        LocalDateTime end2 = task2.getEndTime();
+    private void addToPrioritized(Task task) {
+        Optional.ofNullable(task.getStartTime()).ifPresent(time -> prioritizedTasks.add(task));
+    }
 
-        return start1.isBefore(end2) && start2.isBefore(end1);
+    private void validateTaskTime(Task newTask) {
+        if (hasTimeConflict(newTask)) {
+            throw new TimeConflictException("Новая задача пересекается по времени с существующей");
+        }
     }
 }
 
@@ -0,0 +1,69 @@
+package tracker.controllers;
+
+import tracker.model.Task;
+import tracker.util.LatencyHistogram;
+
+import java.util.List;
+
+// Декоратор истории с теми же метриками, что у InstrumentedTaskManager; операции называются history.*
+public class InstrumentedHistoryManager implements HistoryManager {
+    private final HistoryManager delegate;
+    private final LatencyHistogram addLatency;
+    private final LatencyHistogram removeLatency;
+    private final LatencyHistogram getHistoryLatency;
+    private final LatencyHistogram getHistoryViewLatency;
+
+    public InstrumentedHistoryManager(HistoryManager delegate, ManagerMetrics metrics) {
+        this.delegate = delegate;
+        addLatency = metrics.histogram("history.add");
+        removeLatency = metrics.histogram("history.remove");
+        getHistoryLatency = metrics.histogram("history.getHistory");
+        getHistoryViewLatency = metrics.histogram("history.getHistoryView");
+    }
+
+    @Override
+    public void add(Task task) {
+        long start = System.nanoTime();
+        try {
+            delegate.add(task);
+        } finally {
+            addLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        long start = System.nanoTime();
+        try {
+            delegate.remove(id);
+        } finally {
+            removeLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getHistory();
+        } finally {
+            getHistoryLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Task> getHistoryView() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getHistoryView();
+        } finally {
+            getHistoryViewLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    // Размер опрашивается метриками и сам не меряется
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+}
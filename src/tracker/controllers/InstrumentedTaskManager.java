@@ -0,0 +1,509 @@
+package tracker.controllers;
+
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+import tracker.util.LatencyHistogram;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Декоратор, который меряет каждую операцию менеджера: число вызовов и гистограмму задержек.
+// Вызов обходится двумя System.nanoTime() и записью в заранее заведённую гистограмму, без выделения памяти.
+// Вызовы, завершившиеся исключением, тоже учитываются.
+public class InstrumentedTaskManager implements TaskManager {
+    private final InMemoryTaskManager delegate;
+    private final ManagerMetrics metrics;
+    private final LatencyHistogram getAllTasksLatency;
+    private final LatencyHistogram getAllEpicsLatency;
+    private final LatencyHistogram getAllSubtasksLatency;
+    private final LatencyHistogram deleteAllTasksLatency;
+    private final LatencyHistogram deleteAllEpicsLatency;
+    private final LatencyHistogram deleteAllSubtasksLatency;
+    private final LatencyHistogram getTaskLatency;
+    private final LatencyHistogram getEpicLatency;
+    private final LatencyHistogram getSubtaskLatency;
+    private final LatencyHistogram deleteTaskLatency;
+    private final LatencyHistogram deleteEpicLatency;
+    private final LatencyHistogram deleteSubtaskLatency;
+    private final LatencyHistogram createTaskLatency;
+    private final LatencyHistogram createEpicLatency;
+    private final LatencyHistogram createSubtaskLatency;
+    private final LatencyHistogram updateTaskLatency;
+    private final LatencyHistogram updateEpicLatency;
+    private final LatencyHistogram updateSubtaskLatency;
+    private final LatencyHistogram getHistoryLatency;
+    private final LatencyHistogram createTasksLatency;
+    private final LatencyHistogram createSubtasksLatency;
+    private final LatencyHistogram updateAllLatency;
+    private final LatencyHistogram deleteByIdsLatency;
+    private final LatencyHistogram getPrioritizedTasksLatency;
+    private final LatencyHistogram getSubtasksByEpicLatency;
+    private final LatencyHistogram hasTimeConflictLatency;
+    private final LatencyHistogram pageLatency;
+    private final LatencyHistogram findFreeSlotLatency;
+    private final LatencyHistogram scheduleTaskLatency;
+    private final LatencyHistogram autoScheduleLatency;
+    private final LatencyHistogram getTasksStartingBetweenLatency;
+    private final LatencyHistogram getTasksActiveAtLatency;
+    private final LatencyHistogram getNextTasksLatency;
+    private final LatencyHistogram getTasksByStatusLatency;
+    private final LatencyHistogram getSubtasksByEpicAndStatusLatency;
+    private final LatencyHistogram countByStatusLatency;
+    private final LatencyHistogram getTasksViewLatency;
+    private final LatencyHistogram getEpicsViewLatency;
+    private final LatencyHistogram getSubtasksViewLatency;
+    private final LatencyHistogram getPrioritizedViewLatency;
+    private final LatencyHistogram getHistoryViewLatency;
+
+    public InstrumentedTaskManager(InMemoryTaskManager delegate, ManagerMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        metrics.attach(delegate);
+        getAllTasksLatency = metrics.histogram("getAllTasks");
+        getAllEpicsLatency = metrics.histogram("getAllEpics");
+        getAllSubtasksLatency = metrics.histogram("getAllSubtasks");
+        deleteAllTasksLatency = metrics.histogram("deleteAllTasks");
+        deleteAllEpicsLatency = metrics.histogram("deleteAllEpics");
+        deleteAllSubtasksLatency = metrics.histogram("deleteAllSubtasks");
+        getTaskLatency = metrics.histogram("getTask");
+        getEpicLatency = metrics.histogram("getEpic");
+        getSubtaskLatency = metrics.histogram("getSubtask");
+        deleteTaskLatency = metrics.histogram("deleteTask");
+        deleteEpicLatency = metrics.histogram("deleteEpic");
+        deleteSubtaskLatency = metrics.histogram("deleteSubtask");
+        createTaskLatency = metrics.histogram("createTask");
+        createEpicLatency = metrics.histogram("createEpic");
+        createSubtaskLatency = metrics.histogram("createSubtask");
+        updateTaskLatency = metrics.histogram("updateTask");
+        updateEpicLatency = metrics.histogram("updateEpic");
+        updateSubtaskLatency = metrics.histogram("updateSubtask");
+        getHistoryLatency = metrics.histogram("getHistory");
+        createTasksLatency = metrics.histogram("createTasks");
+        createSubtasksLatency = metrics.histogram("createSubtasks");
+        updateAllLatency = metrics.histogram("updateAll");
+        deleteByIdsLatency = metrics.histogram("deleteByIds");
+        getPrioritizedTasksLatency = metrics.histogram("getPrioritizedTasks");
+        getSubtasksByEpicLatency = metrics.histogram("getSubtasksByEpic");
+        hasTimeConflictLatency = metrics.histogram("hasTimeConflict");
+        pageLatency = metrics.histogram("page");
+        findFreeSlotLatency = metrics.histogram("findFreeSlot");
+        scheduleTaskLatency = metrics.histogram("scheduleTask");
+        autoScheduleLatency = metrics.histogram("autoSchedule");
+        getTasksStartingBetweenLatency = metrics.histogram("getTasksStartingBetween");
+        getTasksActiveAtLatency = metrics.histogram("getTasksActiveAt");
+        getNextTasksLatency = metrics.histogram("getNextTasks");
+        getTasksByStatusLatency = metrics.histogram("getTasksByStatus");
+        getSubtasksByEpicAndStatusLatency = metrics.histogram("getSubtasksByEpicAndStatus");
+        countByStatusLatency = metrics.histogram("countByStatus");
+        getTasksViewLatency = metrics.histogram("getTasksView");
+        getEpicsViewLatency = metrics.histogram("getEpicsView");
+        getSubtasksViewLatency = metrics.histogram("getSubtasksView");
+        getPrioritizedViewLatency = metrics.histogram("getPrioritizedView");
+        getHistoryViewLatency = metrics.histogram("getHistoryView");
+    }
+
+    public ManagerMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllTasks();
+        } finally {
+            getAllTasksLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllEpics();
+        } finally {
+            getAllEpicsLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllSubtasks();
+        } finally {
+            getAllSubtasksLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteAllTasks();
+        } finally {
+            deleteAllTasksLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteAllEpics();
+        } finally {
+            deleteAllEpicsLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteAllSubtasks();
+        } finally {
+            deleteAllSubtasksLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Task getTask(int id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTask(id);
+        } finally {
+            getTaskLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getEpic(id);
+        } finally {
+            getEpicLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSubtask(id);
+        } finally {
+            getSubtaskLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteTask(id);
+        } finally {
+            deleteTaskLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteEpic(id);
+        } finally {
+            deleteEpicLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteSubtask(id);
+        } finally {
+            deleteSubtaskLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void createTask(Task task) {
+        long start = System.nanoTime();
+        try {
+            delegate.createTask(task);
+        } finally {
+            createTaskLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        long start = System.nanoTime();
+        try {
+            delegate.createEpic(epic);
+        } finally {
+            createEpicLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        long start = System.nanoTime();
+        try {
+            delegate.createSubtask(subtask);
+        } finally {
+            createSubtaskLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void updateTask(Task updatedTask) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateTask(updatedTask);
+        } finally {
+            updateTaskLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic updatedEpic) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateEpic(updatedEpic);
+        } finally {
+            updateEpicLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask updatedSubtask) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateSubtask(updatedSubtask);
+        } finally {
+            updateSubtaskLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getHistory();
+        } finally {
+            getHistoryLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void createTasks(List<Task> tasks) {
+        long start = System.nanoTime();
+        try {
+            delegate.createTasks(tasks);
+        } finally {
+            createTasksLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void createSubtasks(List<Subtask> subtasks) {
+        long start = System.nanoTime();
+        try {
+            delegate.createSubtasks(subtasks);
+        } finally {
+            createSubtasksLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void updateAll(List<? extends Task> tasks) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateAll(tasks);
+        } finally {
+            updateAllLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteByIds(Collection<Integer> ids) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteByIds(ids);
+        } finally {
+            deleteByIdsLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<Task> getPrioritizedTasks() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getPrioritizedTasks();
+        } finally {
+            getPrioritizedTasksLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<Task> getTasksView() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTasksView();
+        } finally {
+            getTasksViewLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<Epic> getEpicsView() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getEpicsView();
+        } finally {
+            getEpicsViewLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<Subtask> getSubtasksView() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSubtasksView();
+        } finally {
+            getSubtasksViewLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<Task> getPrioritizedView() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getPrioritizedView();
+        } finally {
+            getPrioritizedViewLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<Task> getHistoryView() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getHistoryView();
+        } finally {
+            getHistoryViewLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    // Поток ленивый: работа идёт при его потреблении, поэтому создание потока не меряется
+    public Stream<Task> query(TaskQuery query) {
+        return delegate.query(query);
+    }
+
+    public TaskPage page(TaskQuery query, String cursor, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.page(query, cursor, limit);
+        } finally {
+            pageLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTasksStartingBetween(from, to);
+        } finally {
+            getTasksStartingBetweenLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<Task> getTasksActiveAt(LocalDateTime instant) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTasksActiveAt(instant);
+        } finally {
+            getTasksActiveAtLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<Task> getNextTasks(LocalDateTime instant, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getNextTasks(instant, limit);
+        } finally {
+            getNextTasksLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public LocalDateTime findFreeSlot(LocalDateTime earliest, Duration duration) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findFreeSlot(earliest, duration);
+        } finally {
+            findFreeSlotLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public LocalDateTime scheduleTask(Task task, LocalDateTime earliest) {
+        long start = System.nanoTime();
+        try {
+            return delegate.scheduleTask(task, earliest);
+        } finally {
+            scheduleTaskLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public void autoSchedule(List<? extends Task> batch, LocalDateTime earliest) {
+        long start = System.nanoTime();
+        try {
+            delegate.autoSchedule(batch, earliest);
+        } finally {
+            autoScheduleLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<Task> getTasksByStatus(Task.Type type, Task.Status status) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTasksByStatus(type, status);
+        } finally {
+            getTasksByStatusLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<Subtask> getSubtasksByEpic(int epicId, Task.Status status) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSubtasksByEpic(epicId, status);
+        } finally {
+            getSubtasksByEpicAndStatusLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public int countByStatus(Task.Type type, Task.Status status) {
+        long start = System.nanoTime();
+        try {
+            return delegate.countByStatus(type, status);
+        } finally {
+            countByStatusLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<Subtask> getSubtasksByEpic(int epicId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSubtasksByEpic(epicId);
+        } finally {
+            getSubtasksByEpicLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public boolean hasTimeConflict(Task task) {
+        long start = System.nanoTime();
+        try {
+            return delegate.hasTimeConflict(task);
+        } finally {
+            hasTimeConflictLatency.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package tracker.controllers;
+
+import tracker.util.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Метрики менеджера: гистограмма задержек на каждую операцию и размеры хранилищ.
+// Гистограммы заводятся один раз при создании декораторов, на горячем пути идёт только запись в готовую.
+// Размеры читаются у менеджера и истории в момент опроса, без копирования списков.
+public class ManagerMetrics implements ManagerMetricsMXBean {
+    private final Map<String, LatencyHistogram> operations = new ConcurrentHashMap<>();
+    private final long startedNanos = System.nanoTime();
+    private volatile InMemoryTaskManager manager;
+    private ObjectName objectName;
+
+    public LatencyHistogram histogram(String operation) {
+        return operations.computeIfAbsent(operation, name -> new LatencyHistogram());
+    }
+
+    void attach(InMemoryTaskManager manager) {
+        this.manager = manager;
+    }
+
+    // Снимок по всем операциям, упорядоченный по имени
+    @Override
+    public Map<String, LatencyHistogram.Snapshot> getOperations() {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        operations.forEach((name, histogram) -> snapshots.put(name, histogram.snapshot()));
+        return snapshots;
+    }
+
+    public LatencyHistogram.Snapshot getOperation(String operation) {
+        LatencyHistogram histogram = operations.get(operation);
+        return histogram != null ? histogram.snapshot() : null;
+    }
+
+    @Override
+    public int getTaskCount() {
+        InMemoryTaskManager current = manager;
+        return current != null ? current.getTaskCount() : 0;
+    }
+
+    @Override
+    public int getEpicCount() {
+        InMemoryTaskManager current = manager;
+        return current != null ? current.getEpicCount() : 0;
+    }
+
+    @Override
+    public int getSubtaskCount() {
+        InMemoryTaskManager current = manager;
+        return current != null ? current.getSubtaskCount() : 0;
+    }
+
+    @Override
+    public int getPrioritizedCount() {
+        InMemoryTaskManager current = manager;
+        return current != null ? current.getPrioritizedCount() : 0;
+    }
+
+    @Override
+    public int getHistorySize() {
+        InMemoryTaskManager current = manager;
+        return current != null ? current.getHistorySize() : 0;
+    }
+
+    @Override
+    public long getUptimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+
+    @Override
+    public void reset() {
+        operations.values().forEach(LatencyHistogram::reset);
+    }
+
+    // Регистрирует метрики в платформенном MBeanServer как tracker:type=ManagerMetrics,name=<name>
+    public synchronized ObjectName registerMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName registered = new ObjectName("tracker:type=ManagerMetrics,name=" + ObjectName.quote(name));
+            unregisterMBean();
+            server.registerMBean(this, registered);
+            objectName = registered;
+            return registered;
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось зарегистрировать метрики в JMX: " + name, e);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if (objectName == null) return;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            // MBean уже сняли снаружи - забывать имя всё равно нужно
+        }
+        objectName = null;
+    }
+}
@@ -0,0 +1,24 @@
+package tracker.controllers;
+
+import tracker.util.LatencyHistogram;
+
+import java.util.Map;
+
+// Метрики менеджера в JMX: задержки операций в наносекундах и размеры хранилищ
+public interface ManagerMetricsMXBean {
+    Map<String, LatencyHistogram.Snapshot> getOperations();
+
+    int getTaskCount();
+
+    int getEpicCount();
+
+    int getSubtaskCount();
+
+    int getPrioritizedCount();
+
+    int getHistorySize();
+
+    long getUptimeMillis();
+
+    void reset();
+}
@@ -1,5 +1,7 @@
 package tracker.controllers;
 
+import java.io.File;
+
 public class Managers {
 
     private Managers() {
@@ -9,7 +11,50 @@ public class Managers {
         return new InMemoryTaskManager(getDefaultHistory());
     }
 
+    // Для работы из нескольких потоков; история тоже должна быть потокобезопасной
+    public static ConcurrentTaskManager getConcurrent() {
+        return new ConcurrentTaskManager(new ConcurrentHistoryManager());
+    }
+
+    public static FileBackedTaskManager getJournaled(File file) {
+        return getJournaled(file, FileStorageOptions.DEFAULT_COMPACTION_RECORDS, FileStorageOptions.DEFAULT_COMPACTION_BYTES);
+    }
+
+    // Пороги сжатия: по числу записей и по размеру журнала в байтах, 0 - порог отключён
+    public static FileBackedTaskManager getJournaled(File file, long compactionRecords, long compactionBytes) {
+        FileStorageOptions options = FileStorageOptions.journaled();
+        options.setCompactionRecords(compactionRecords);
+        options.setCompactionBytes(compactionBytes);
+        return getFileBacked(file, options);
+    }
+
+    public static FileBackedTaskManager getFileBacked(File file, FileStorageOptions options) {
+        if (file.exists() || new TaskJournal(TaskJournal.pathFor(file)).exists()) {
+            return FileBackedTaskManager.loadFromFile(file, options);
+        }
+        return new FileBackedTaskManager(getDefaultHistory(), file, options);
+    }
+
+    // Менеджер с метриками задержек по операциям и размеров хранилищ, см. getMetrics()
+    public static InstrumentedTaskManager getInstrumented() {
+        ManagerMetrics metrics = new ManagerMetrics();
+        HistoryManager history = new InstrumentedHistoryManager(getDefaultHistory(), metrics);
+        return new InstrumentedTaskManager(new InMemoryTaskManager(history), metrics);
+    }
+
+    // То же, и метрики сразу доступны в JMX как tracker:type=ManagerMetrics,name=<jmxName>
+    public static InstrumentedTaskManager getInstrumented(String jmxName) {
+        InstrumentedTaskManager manager = getInstrumented();
+        manager.getMetrics().registerMBean(jmxName);
+        return manager;
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    // История, которая помнит не больше capacity последних просмотренных задач
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package tracker.controllers;
+
+import tracker.exceptions.ManagerSaveException;
+import tracker.model.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Двоичный снимок, отображённый в память. При открытии строится только индекс id -> смещение записи
+// (тип и id читаются без разбора строк), сами задачи разбираются прямо из отображения:
+// по одной по запросу или все подряд.
+// Файл не копируется в кучу; страницы подгружает ОС по мере обращения.
+public class MappedSnapshot implements AutoCloseable {
+    private final MappedByteBuffer buffer;
+    private final Map<Integer, Integer> offsets = new HashMap<>();
+    private final int[] order;
+    private final int[] typeCounts = new int[Task.Type.values().length];
+    // Задачи и подзадачи со временем начала - столько записей будет в индексе по времени
+    private int scheduledCount;
+    private int maxId;
+    private byte[] strings = new byte[256];
+
+    private MappedSnapshot(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        TaskBinaryFormat.readHeader(buffer);
+
+        int[] positions = new int[64];
+        int count = 0;
+        while (buffer.hasRemaining()) {
+            int start = buffer.position();
+            int length = TaskBinaryFormat.readLength(buffer);
+            int body = buffer.position();
+            if (length < 0 || length > buffer.remaining()) {
+                System.err.println("Ошибка: обрезанная запись в конце двоичного снимка");
+                break;
+            }
+            buffer.position(body + length);
+            Task.Type type = length > 0 ? TaskBinaryFormat.typeAt(buffer, body) : null;
+            if (type == null) continue;
+
+            // Повторный id в снимке заменяет предыдущий, как и при потоковой загрузке
+            int id = TaskBinaryFormat.idAt(buffer, body);
+            count(start, 1);
+            Integer previous = offsets.put(id, start);
+            if (previous != null) {
+                count(previous, -1);
+            } else {
+                if (count == positions.length) {
+                    int[] larger = new int[count * 2];
+                    System.arraycopy(positions, 0, larger, 0, count);
+                    positions = larger;
+                }
+                positions[count++] = id;
+            }
+            maxId = Math.max(maxId, id);
+        }
+        order = new int[count];
+        System.arraycopy(positions, 0, order, 0, count);
+    }
+
+    public static MappedSnapshot open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new ManagerSaveException("Снимок слишком велик для отображения в память: " + channel.size());
+            }
+            // Отображение остаётся действительным и после закрытия канала
+            return new MappedSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка загрузки из файла", e);
+        }
+    }
+
+    public boolean contains(int id) {
+        return offsets.containsKey(id);
+    }
+
+    public Task.Type typeOf(int id) {
+        Integer offset = offsets.get(id);
+        return offset != null ? typeAt(offset) : null;
+    }
+
+    // Число задач данного типа в снимке
+    public int count(Task.Type type) {
+        return typeCounts[type.ordinal()];
+    }
+
+    public int getScheduledCount() {
+        return scheduledCount;
+    }
+
+    public Task read(int id) {
+        Integer offset = offsets.get(id);
+        return offset != null ? decode(offset) : null;
+    }
+
+    // Задачи в порядке первого появления id в файле: эпики раньше своих подзадач
+    public void forEach(Consumer<Task> consumer) {
+        for (int id : order) {
+            Task task = read(id);
+            if (task != null) {
+                consumer.accept(task);
+            }
+        }
+    }
+
+    public int size() {
+        return order.length;
+    }
+
+    public int getMaxId() {
+        return maxId;
+    }
+
+    // Освободить отображение явно нельзя - оно уходит вместе с последней ссылкой на буфер
+    @Override
+    public void close() {
+        offsets.clear();
+    }
+
+    private void count(int offset, int delta) {
+        ByteBuffer record = buffer.duplicate().position(offset);
+        TaskBinaryFormat.readLength(record);
+        Task.Type type = TaskBinaryFormat.typeAt(record, record.position());
+        typeCounts[type.ordinal()] += delta;
+        if (type != Task.Type.EPIC && TaskBinaryFormat.hasStartAt(record, record.position())) {
+            scheduledCount += delta;
+        }
+    }
+
+    private Task.Type typeAt(int offset) {
+        ByteBuffer record = buffer.duplicate().position(offset);
+        TaskBinaryFormat.readLength(record);
+        return TaskBinaryFormat.typeAt(record, record.position());
+    }
+
+    private Task decode(int offset) {
+        ByteBuffer record = buffer.duplicate().position(offset);
+        int length = TaskBinaryFormat.readLength(record);
+        if (length > strings.length) {
+            strings = new byte[length];
+        }
+        return TaskBinaryFormat.decode(record, record.position() + length, strings);
+    }
+}
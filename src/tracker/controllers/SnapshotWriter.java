@@ -0,0 +1,171 @@
+package tracker.controllers;
+
+import tracker.exceptions.ManagerSaveException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// Отложенная запись снимка (write-behind) в отдельном потоке. Мутация только отмечает изменение,
+// поток писателя снимает состояние и пишет его целиком, поэтому все изменения, накопившиеся за
+// время одной записи, уходят на диск следующей одной записью. Если на диск не попало больше
+// maxPending изменений, отмечающий изменение ждёт, пока писатель догонит.
+public class SnapshotWriter implements AutoCloseable {
+    private static final long RETRY_MILLIS = 100;
+
+    private final String name;
+    // Вызывается в потоке писателя: снимает состояние и возвращает запись, которая идёт уже без блокировок
+    private final Supplier<Runnable> capture;
+    private final int maxPending;
+    // Номера изменений: requested - последнее отмеченное, written - последнее записанное на диск
+    private long requested;
+    private long written;
+    private final Deque<Barrier> barriers = new ArrayDeque<>();
+    private RuntimeException failure;
+    private boolean closed;
+    private Thread thread;
+
+    public SnapshotWriter(String name, Supplier<Runnable> capture, int maxPending) {
+        this.name = name;
+        this.capture = capture;
+        this.maxPending = Math.max(1, maxPending);
+    }
+
+    // Отмечает изменение; вызывается после того, как оно применено в памяти
+    public synchronized void changed() {
+        if (closed) throw new IllegalStateException("Запись снимка уже остановлена");
+
+        requested++;
+        if (thread == null) {
+            thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        notifyAll();
+    }
+
+    // Обратное давление: ждёт, пока на диск не попадёт достаточно изменений.
+    // Вызывать без блокировок, которые берёт capture, иначе писатель не сможет снять состояние
+    public synchronized void awaitCapacity() {
+        while (!closed && requested - written > maxPending) {
+            if (failure != null) {
+                throw new ManagerSaveException("Отложенная запись снимка отстала из-за ошибки", failure);
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ManagerSaveException("Ожидание записи снимка прервано", e);
+            }
+        }
+    }
+
+    // Завершается, когда на диске окажутся все изменения, отмеченные до вызова
+    public synchronized CompletableFuture<Void> barrier() {
+        if (written >= requested) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Barrier barrier = new Barrier(requested);
+        barriers.add(barrier);
+        return barrier.future;
+    }
+
+    public synchronized long getPending() {
+        return requested - written;
+    }
+
+    // Дописывает всё отмеченное и останавливает поток; ошибка последней записи пробрасывается
+    @Override
+    public void close() {
+        Thread running;
+        synchronized (this) {
+            closed = true;
+            running = thread;
+            notifyAll();
+        }
+        if (running != null) {
+            try {
+                running.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ManagerSaveException("Ожидание записи снимка прервано", e);
+            }
+        }
+        synchronized (this) {
+            if (written < requested) {
+                throw new ManagerSaveException("Не удалось записать снимок при закрытии", failure);
+            }
+        }
+    }
+
+    private void run() {
+        while (true) {
+            long target;
+            synchronized (this) {
+                while (written == requested && !closed) {
+                    waitQuietly(0);
+                }
+                if (written == requested) return;
+                target = requested;
+            }
+
+            // Номер берётся до снятия состояния: всё, что отмечено до него, в снимок уже попадёт
+            List<Barrier> done = new ArrayList<>();
+            RuntimeException error = null;
+            try {
+                capture.get().run();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+
+            synchronized (this) {
+                if (error == null) {
+                    written = target;
+                    failure = null;
+                } else {
+                    failure = error;
+                }
+                while (!barriers.isEmpty() && barriers.peek().target <= target) {
+                    done.add(barriers.poll());
+                }
+                notifyAll();
+            }
+
+            for (Barrier barrier : done) {
+                if (error == null) {
+                    barrier.future.complete(null);
+                } else {
+                    barrier.future.completeExceptionally(error);
+                }
+            }
+
+            if (error != null) {
+                synchronized (this) {
+                    // При закрытии не повторяем: ошибка достанется close()
+                    if (closed) return;
+                    waitQuietly(RETRY_MILLIS);
+                }
+            }
+        }
+    }
+
+    private void waitQuietly(long millis) {
+        try {
+            wait(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Barrier {
+        private final long target;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Barrier(long target) {
+            this.target = target;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package tracker.controllers;
+
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Вторичный индекс по статусу: для каждого типа и статуса - задачи в порядке добавления,
+// для каждого эпика и статуса - его подзадачи. Выборка стоит O(результата), а не обход всех карт.
+// По id запоминается, куда задача положена, поэтому перекладка и удаление не ищут её по корзинам,
+// даже если статус уже поменяли прямо в объекте. Общей блокировки нет: корзины - конкурентные
+// карты по номеру добавления, перекладка одного id атомарна через его запись в filed, так что
+// записи из разных полос ConcurrentTaskManager друг друга не ждут
+public class StatusIndex {
+    private static final class Filed {
+        final Task.Type type;
+        final Task.Status status;
+        final int epicId;
+        // Ключ в корзинах: номер добавления сохраняет порядок и позволяет убрать задачу без поиска
+        final long seq;
+
+        Filed(Task.Type type, Task.Status status, int epicId, long seq) {
+            this.type = type;
+            this.status = status;
+            this.epicId = epicId;
+            this.seq = seq;
+        }
+    }
+
+    // Задачи одного статуса; размер считается отдельно, у ConcurrentSkipListMap size() - обход
+    private static final class Bucket<T extends Task> {
+        final ConcurrentSkipListMap<Long, T> items = new ConcurrentSkipListMap<>();
+        final AtomicInteger count = new AtomicInteger();
+
+        void put(long seq, T task) {
+            if (items.put(seq, task) == null) count.incrementAndGet();
+        }
+
+        void remove(long seq) {
+            if (items.remove(seq) != null) count.decrementAndGet();
+        }
+    }
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentHashMap<Integer, Filed> filed = new ConcurrentHashMap<>();
+    // Состав обоих EnumMap не меняется после конструктора, поэтому читать их можно без блокировок
+    private final EnumMap<Task.Type, EnumMap<Task.Status, Bucket<Task>>> byType = new EnumMap<>(Task.Type.class);
+    private final ConcurrentHashMap<Integer, EnumMap<Task.Status, Bucket<Subtask>>> byEpic = new ConcurrentHashMap<>();
+
+    public StatusIndex() {
+        for (Task.Type type : Task.Type.values()) {
+            byType.put(type, newBuckets());
+        }
+    }
+
+    // Кладёт задачу по её текущему статусу; если она уже в индексе - перекладывает
+    public void add(Task task) {
+        if (task == null || task.getStatus() == null) return;
+
+        int epicId = task instanceof Subtask ? ((Subtask) task).getEpicId() : 0;
+        Task.Type type = task.getType();
+        Task.Status status = task.getStatus();
+        // compute держит запись этого id: перекладки одной задачи не перемешаются
+        filed.compute(task.getId(), (id, previous) -> {
+            if (previous != null) {
+                unfile(previous);
+            }
+
+            Filed current = new Filed(type, status, epicId, sequence.incrementAndGet());
+            byType.get(type).get(status).put(current.seq, task);
+            if (task instanceof Subtask) {
+                byEpic.compute(epicId, (key, buckets) -> {
+                    EnumMap<Task.Status, Bucket<Subtask>> result = buckets != null ? buckets : newBuckets();
+                    result.get(status).put(current.seq, (Subtask) task);
+                    return result;
+                });
+            }
+            return current;
+        });
+    }
+
+    public void remove(int id) {
+        filed.computeIfPresent(id, (key, previous) -> {
+            unfile(previous);
+            return null;
+        });
+    }
+
+    // Убирает все задачи типа; подзадачи вместе с корзинами эпиков. Вызывать, когда задачи
+    // этого типа одновременно никто не добавляет - в ConcurrentTaskManager это массовые операции
+    public void clear(Task.Type type) {
+        for (Bucket<Task> bucket : byType.get(type).values()) {
+            bucket.items.values().forEach(task -> filed.remove(task.getId()));
+            bucket.items.clear();
+            bucket.count.set(0);
+        }
+        if (type == Task.Type.SUBTASK) {
+            byEpic.clear();
+        }
+    }
+
+    public List<Task> find(Task.Type type, Task.Status status) {
+        return new ArrayList<>(byType.get(type).get(status).items.values());
+    }
+
+    public List<Subtask> findSubtasks(int epicId, Task.Status status) {
+        EnumMap<Task.Status, Bucket<Subtask>> buckets = byEpic.get(epicId);
+        return buckets != null ? new ArrayList<>(buckets.get(status).items.values()) : new ArrayList<>();
+    }
+
+    public int count(Task.Type type, Task.Status status) {
+        return byType.get(type).get(status).count.get();
+    }
+
+    public int size() {
+        return filed.size();
+    }
+
+    // Вызывается внутри compute записи этого id
+    private void unfile(Filed previous) {
+        byType.get(previous.type).get(previous.status).remove(previous.seq);
+        if (previous.type == Task.Type.SUBTASK) {
+            // Пустые корзины эпика убираются атомарно с проверкой, чтобы не потерять параллельное добавление
+            byEpic.computeIfPresent(previous.epicId, (key, buckets) -> {
+                buckets.get(previous.status).remove(previous.seq);
+                return isEmpty(buckets) ? null : buckets;
+            });
+        }
+    }
+
+    private static boolean isEmpty(Map<Task.Status, ? extends Bucket<?>> buckets) {
+        for (Bucket<?> bucket : buckets.values()) {
+            if (bucket.count.get() > 0) return false;
+        }
+        return true;
+    }
+
+    private static <T extends Task> EnumMap<Task.Status, Bucket<T>> newBuckets() {
+        EnumMap<Task.Status, Bucket<T>> buckets = new EnumMap<>(Task.Status.class);
+        for (Task.Status status : Task.Status.values()) {
+            buckets.put(status, new Bucket<>());
+        }
+        return buckets;
+    }
+}
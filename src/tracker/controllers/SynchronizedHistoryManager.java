@@ -0,0 +1,39 @@
+package tracker.controllers;
+
+import tracker.model.Task;
+
+import java.util.List;
+
+// Потокобезопасная обёртка: все вызовы идут под одним монитором
+public class SynchronizedHistoryManager implements HistoryManager {
+    private final HistoryManager delegate;
+
+    public SynchronizedHistoryManager(HistoryManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        delegate.add(task);
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        delegate.remove(id);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return delegate.getHistory();
+    }
+
+    @Override
+    public synchronized List<Task> getHistoryView() {
+        return delegate.getHistoryView();
+    }
+
+    @Override
+    public synchronized int size() {
+        return delegate.size();
+    }
+}
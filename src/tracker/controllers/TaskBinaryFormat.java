@@ -0,0 +1,370 @@
+package tracker.controllers;
+
+import tracker.exceptions.ManagerSaveException;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+
+// Двоичный формат снимка: заголовок "TKBN" + версия, затем записи вида [длина][тело].
+// Тело: тип и статус (порядковые номера), флаги, id и эпик (varint), время в минутах от эпохи
+// и длительность в минутах (varint), имя и описание - длина + UTF-8.
+// Длина перед записью позволяет пропустить повреждённую запись и строить индекс смещений.
+// Экземпляр накапливает записанные байты, поэтому у каждого потока должен быть свой.
+public class TaskBinaryFormat {
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 5;
+
+    private static final byte[] MAGIC = {'T', 'K', 'B', 'N'};
+    private static final Task.Type[] TYPES = Task.Type.values();
+    private static final Task.Status[] STATUSES = Task.Status.values();
+
+    private static final int HAS_START = 1;
+    private static final int HAS_DURATION = 1 << 1;
+    // Секунды и наносекунды внутри минуты - редкий случай, пишутся отдельным полем
+    private static final int HAS_SUB_MINUTE = 1 << 2;
+
+    private byte[] bytes = new byte[8 * 1024];
+    private int size;
+    private final byte[] record = new byte[10];
+    private byte[] body = new byte[256];
+    private int bodySize;
+
+    public static boolean isBinary(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length);
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // дочитываем сигнатуру
+            }
+            return !header.hasRemaining() && hasMagic(header.flip());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Проверяет заголовок и оставляет позицию буфера на первой записи
+    public static void readHeader(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || !hasMagic(buffer)) {
+            throw new ManagerSaveException("Файл не является двоичным снимком задач");
+        }
+        buffer.position(buffer.position() + MAGIC.length);
+        int version = buffer.get() & 0xFF;
+        if (version != VERSION) {
+            throw new ManagerSaveException("Неподдерживаемая версия двоичного снимка: " + version);
+        }
+    }
+
+    // Потоковое чтение файла: в памяти только буфер чтения, он растёт лишь под запись длиннее себя
+    public static void read(Path path, Consumer<Task> consumer) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            boolean header = true;
+            boolean eof = false;
+            byte[] strings = new byte[256];
+
+            while (true) {
+                if (!eof && channel.read(buffer) < 0) {
+                    eof = true;
+                }
+                buffer.flip();
+
+                if (header) {
+                    if (buffer.remaining() < HEADER_SIZE && !eof) {
+                        buffer.compact();
+                        continue;
+                    }
+                    readHeader(buffer);
+                    header = false;
+                }
+
+                while (buffer.hasRemaining()) {
+                    int start = buffer.position();
+                    int length = readLength(buffer);
+                    if (length > channel.size()) {
+                        throw new ManagerSaveException("Повреждена длина записи двоичного снимка");
+                    }
+                    if (length < 0 || buffer.remaining() < length) {
+                        buffer.position(start);
+                        break;
+                    }
+                    int end = buffer.position() + length;
+                    if (length > strings.length) {
+                        strings = new byte[length];
+                    }
+                    Task task = decode(buffer, end, strings);
+                    buffer.position(end);
+                    if (task != null) {
+                        consumer.accept(task);
+                    }
+                }
+
+                if (eof) {
+                    if (buffer.hasRemaining()) {
+                        System.err.println("Ошибка: обрезанная запись в конце двоичного снимка");
+                    }
+                    return;
+                }
+                if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+                    // Запись длиннее буфера - расширяем
+                    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    larger.put(buffer);
+                    buffer = larger;
+                } else {
+                    buffer.compact();
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка загрузки из файла", e);
+        }
+    }
+
+    // Разбирает тело записи [position, end); при ошибке печатает сообщение и возвращает null.
+    // strings - рабочий массив не короче записи, нужен для буферов без доступного массива
+    public static Task decode(ByteBuffer buffer, int end, byte[] strings) {
+        try {
+            int typeIndex = buffer.get() & 0xFF;
+            int statusIndex = buffer.get() & 0xFF;
+            if (typeIndex >= TYPES.length || statusIndex >= STATUSES.length) {
+                System.err.println("Ошибка: неверное значение enum - " + typeIndex + "/" + statusIndex);
+                return null;
+            }
+            Task.Type type = TYPES[typeIndex];
+            Task.Status status = STATUSES[statusIndex];
+            int flags = buffer.get() & 0xFF;
+            int id = readVarInt(buffer);
+            int epicId = type == Task.Type.SUBTASK ? readVarInt(buffer) : 0;
+
+            LocalDateTime startTime = null;
+            if ((flags & HAS_START) != 0) {
+                long minutes = unzigzag(readVarLong(buffer));
+                long subMinute = (flags & HAS_SUB_MINUTE) != 0 ? readVarLong(buffer) : 0;
+                startTime = LocalDateTime.ofEpochSecond(minutes * 60 + subMinute / 1_000_000_000L, (int) (subMinute % 1_000_000_000L), ZoneOffset.UTC);
+            }
+            Duration duration = (flags & HAS_DURATION) != 0 ? Duration.ofMinutes(unzigzag(readVarLong(buffer))) : null;
+
+            String name = readString(buffer, strings);
+            String description = readString(buffer, strings);
+            if (buffer.position() != end) {
+                System.err.println("Ошибка: длина записи не совпадает с содержимым, id " + id);
+                return null;
+            }
+
+            Task task;
+            switch (type) {
+                case EPIC:
+                    // Для эпика время рассчитывается автоматически из подзадач
+                    task = new Epic(name, description);
+                    startTime = null;
+                    duration = null;
+                    break;
+                case SUBTASK:
+                    task = new Subtask(name, description, epicId);
+                    break;
+                default:
+                    task = new Task(name, description);
+            }
+            task.setId(id);
+            task.setStatus(status);
+            if (startTime != null) task.setStartTime(startTime);
+            if (duration != null) task.setDuration(duration);
+            return task;
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка: повреждённая запись двоичного снимка - " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Тип и id записи без разбора строк - для построения индекса смещений.
+    // body - позиция тела записи (сразу после длины)
+    public static Task.Type typeAt(ByteBuffer buffer, int body) {
+        int typeIndex = buffer.get(body) & 0xFF;
+        return typeIndex < TYPES.length ? TYPES[typeIndex] : null;
+    }
+
+    public static boolean hasStartAt(ByteBuffer buffer, int body) {
+        return (buffer.get(body + 2) & HAS_START) != 0;
+    }
+
+    public static int idAt(ByteBuffer buffer, int body) {
+        return readVarInt(buffer.duplicate().position(body + 3));
+    }
+
+    public void writeHeader() {
+        ensureCapacity(HEADER_SIZE);
+        System.arraycopy(MAGIC, 0, bytes, size, MAGIC.length);
+        size += MAGIC.length;
+        bytes[size++] = (byte) VERSION;
+    }
+
+    public void write(Task task) {
+        bodySize = 0;
+        LocalDateTime startTime = task instanceof Epic ? null : task.getStartTime();
+        Duration duration = task instanceof Epic ? null : task.getDuration();
+
+        int flags = 0;
+        long subMinute = 0;
+        if (startTime != null) {
+            flags |= HAS_START;
+            subMinute = startTime.getSecond() * 1_000_000_000L + startTime.getNano();
+            if (subMinute != 0) flags |= HAS_SUB_MINUTE;
+        }
+        if (duration != null) flags |= HAS_DURATION;
+
+        putBody((byte) task.getType().ordinal());
+        putBody((byte) task.getStatus().ordinal());
+        putBody((byte) flags);
+        putVarLong(task.getId() & 0xFFFFFFFFL);
+        if (task instanceof Subtask) {
+            putVarLong(((Subtask) task).getEpicId() & 0xFFFFFFFFL);
+        }
+        if (startTime != null) {
+            putVarLong(zigzag(Math.floorDiv(startTime.toEpochSecond(ZoneOffset.UTC), 60)));
+            if (subMinute != 0) putVarLong(subMinute);
+        }
+        if (duration != null) {
+            putVarLong(zigzag(duration.toMinutes()));
+        }
+        putString(task.getName());
+        putString(task.getDescription());
+
+        int prefix = varLong(record, 0, bodySize);
+        ensureCapacity(prefix + bodySize);
+        System.arraycopy(record, 0, bytes, size, prefix);
+        System.arraycopy(body, 0, bytes, size + prefix, bodySize);
+        size += prefix + bodySize;
+    }
+
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(bytes, 0, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    private static boolean hasMagic(ByteBuffer buffer) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(buffer.position() + i) != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    // null пишется длиной 0, остальные строки - длиной + 1
+    private void putString(String value) {
+        if (value == null) {
+            putVarLong(0);
+            return;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        putVarLong(encoded.length + 1L);
+        ensureBody(encoded.length);
+        System.arraycopy(encoded, 0, body, bodySize, encoded.length);
+        bodySize += encoded.length;
+    }
+
+    private static String readString(ByteBuffer buffer, byte[] strings) {
+        int length = readVarInt(buffer) - 1;
+        if (length < 0) return null;
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("строка выходит за границу записи");
+        }
+
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            buffer.get(strings, 0, length);
+            value = new String(strings, 0, length, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private void putBody(byte value) {
+        ensureBody(1);
+        body[bodySize++] = value;
+    }
+
+    private void putVarLong(long value) {
+        ensureBody(10);
+        bodySize = varLong(body, bodySize, value);
+    }
+
+    private static int varLong(byte[] target, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            target[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        long value = readVarLong(buffer);
+        if (value > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("число не помещается в int");
+        }
+        return (int) value;
+    }
+
+    // Читает длину записи; -1, если она обрезана концом буфера
+    public static int readLength(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (!buffer.hasRemaining()) return -1;
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0 && value >= 0) return value;
+            if (b >= 0) break;
+        }
+        throw new ManagerSaveException("Повреждена длина записи двоичного снимка");
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("слишком длинное число");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private void ensureBody(int extra) {
+        if (bodySize + extra > body.length) {
+            byte[] larger = new byte[Math.max(body.length * 2, bodySize + extra)];
+            System.arraycopy(body, 0, larger, 0, bodySize);
+            body = larger;
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > bytes.length) {
+            byte[] larger = new byte[Math.max(bytes.length * 2, size + extra)];
+            System.arraycopy(bytes, 0, larger, 0, size);
+            bytes = larger;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package tracker.controllers;
+
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// Формат строки CSV: id,type,name,status,description,epic,startTime,duration.
+// Разбор идёт прямо по символам строки: поля не выделяются в отдельные строки,
+// кроме имени и описания. Экземпляр хранит границы полей, поэтому у каждого потока должен быть свой.
+public class TaskCsvFormat {
+    public static final String HEADER = "id,type,name,status,description,epic";
+
+    private static final int FIELDS = 8;
+    private static final Task.Type[] TYPES = Task.Type.values();
+    private static final Task.Status[] STATUSES = Task.Status.values();
+
+    private final int[] starts = new int[FIELDS];
+    private final int[] ends = new int[FIELDS];
+
+    public static String format(Task task) {
+        return String.join(",", String.valueOf(task.getId()), task.getType().name(), task.getName(), task.getStatus().name(), task.getDescription(), task instanceof Subtask ? String.valueOf(((Subtask) task).getEpicId()) : "", task.getStartTime() != null ? task.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "", task.getDuration() != null ? String.valueOf(task.getDuration().toMinutes()) : "");
+    }
+
+    public Task parse(String line) {
+        return parse(line.toCharArray(), 0, line.length());
+    }
+
+    public Task parse(char[] chars, int start, int end) {
+        int fields = split(chars, start, end);
+        if (fields < 5) return null;
+
+        try {
+            int id = parseInt(chars, 0);
+            Task.Type type = parseEnum(TYPES, chars, 1);
+            String name = new String(chars, starts[2], ends[2] - starts[2]);
+            Task.Status status = parseEnum(STATUSES, chars, 3);
+            String description = new String(chars, starts[4], ends[4] - starts[4]);
+
+            LocalDateTime startTime = null;
+            Duration duration = null;
+
+            if (fields > 6 && ends[6] > starts[6]) {
+                startTime = parseDateTime(chars, 6);
+            }
+
+            if (fields > 7 && ends[7] > starts[7]) {
+                duration = Duration.ofMinutes(parseLong(chars, 7));
+            }
+
+            switch (type) {
+                case TASK:
+                    Task task = new Task(name, description);
+                    task.setId(id);
+                    task.setStatus(status);
+                    if (startTime != null) task.setStartTime(startTime);
+                    if (duration != null) task.setDuration(duration);
+                    return task;
+
+                case EPIC:
+                    Epic epic = new Epic(name, description);
+                    epic.setId(id);
+                    epic.setStatus(status);
+                    // Для эпика время рассчитывается автоматически из подзадач
+                    return epic;
+
+                case SUBTASK:
+                    if (fields < 6) return null;
+                    int epicId = parseInt(chars, 5);
+                    Subtask subtask = new Subtask(name, description, epicId);
+                    subtask.setId(id);
+                    subtask.setStatus(status);
+                    if (startTime != null) subtask.setStartTime(startTime);
+                    if (duration != null) subtask.setDuration(duration);
+                    return subtask;
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Ошибка: неверный числовой формат - " + e.getMessage());
+        } catch (DateTimeParseException e) {
+            System.err.println("Ошибка формата даты - " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ошибка: неверное значение enum - " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Неизвестная ошибка при разборе строки: " + e.getMessage());
+        }
+        return null;
+    }
+
+    // Запоминает границы полей; лишние запятые достаются последнему полю
+    private int split(char[] chars, int start, int end) {
+        int field = 0;
+        starts[0] = start;
+        for (int i = start; i < end && field < FIELDS - 1; i++) {
+            if (chars[i] == ',') {
+                ends[field] = i;
+                starts[++field] = i + 1;
+            }
+        }
+        ends[field] = end;
+        return field + 1;
+    }
+
+    private int parseInt(char[] chars, int field) {
+        long value = parseLong(chars, field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + text(chars, field) + "\"");
+        }
+        return (int) value;
+    }
+
+    private long parseLong(char[] chars, int field) {
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = i < end && chars[i] == '-';
+        if (negative) i++;
+        if (i == end || end - i > 18) {
+            throw new NumberFormatException("For input string: \"" + text(chars, field) + "\"");
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + text(chars, field) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private <E extends Enum<E>> E parseEnum(E[] values, char[] chars, int field) {
+        int length = ends[field] - starts[field];
+        for (E value : values) {
+            String name = value.name();
+            if (name.length() != length) continue;
+
+            boolean matches = true;
+            for (int i = 0; i < length && matches; i++) {
+                matches = name.charAt(i) == chars[starts[field] + i];
+            }
+            if (matches) return value;
+        }
+        throw new IllegalArgumentException("No enum constant " + values[0].getDeclaringClass().getCanonicalName() + "." + text(chars, field));
+    }
+
+    // Быстрый путь для yyyy-MM-ddTHH:mm[:ss], остальное отдаём стандартному парсеру
+    private LocalDateTime parseDateTime(char[] chars, int field) {
+        int s = starts[field];
+        int length = ends[field] - s;
+        if ((length == 16 || length == 19) && chars[s + 4] == '-' && chars[s + 7] == '-' && chars[s + 10] == 'T' && chars[s + 13] == ':' && (length == 16 || chars[s + 16] == ':')) {
+            int year = digits(chars, s, 4);
+            int month = digits(chars, s + 5, 2);
+            int day = digits(chars, s + 8, 2);
+            int hour = digits(chars, s + 11, 2);
+            int minute = digits(chars, s + 14, 2);
+            int second = length == 19 ? digits(chars, s + 17, 2) : 0;
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0) {
+                try {
+                    return LocalDateTime.of(year, month, day, hour, minute, second);
+                } catch (DateTimeException e) {
+                    // Некорректная дата - пусть стандартный парсер сформирует привычное сообщение
+                }
+            }
+        }
+        return LocalDateTime.parse(text(chars, field), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    private static int digits(char[] chars, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private String text(char[] chars, int field) {
+        return new String(chars, starts[field], ends[field] - starts[field]);
+    }
+}
@@ -0,0 +1,258 @@
+package tracker.controllers;
+
+import tracker.exceptions.ManagerSaveException;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Журнал изменений: одна строка на каждую мутацию, дописывается в конец файла.
+// При загрузке строки журнала проигрываются поверх снимка.
+// Перед сжатием активный файл запечатывается в сегмент <file>.journal.<n>,
+// и после записи нового снимка все сегменты до n включительно удаляются.
+// Методы записи синхронизированы: при GROUP_COMMIT пачку сбрасывает и фоновый поток.
+public class TaskJournal implements AutoCloseable {
+    private final Path path;
+    private final FileStorageOptions.Durability durability;
+    private final long groupCommitMillis;
+    private final int groupCommitRecords;
+    private final ByteArrayOutputStream group = new ByteArrayOutputStream();
+    private int groupRecords;
+    private ScheduledExecutorService groupFlusher;
+    private FileChannel channel;
+    private long records;
+    private long size;
+
+    public TaskJournal(Path path) {
+        this(path, FileStorageOptions.snapshot());
+    }
+
+    public TaskJournal(Path path, FileStorageOptions options) {
+        this.path = path;
+        this.durability = options.getDurability();
+        this.groupCommitMillis = options.getGroupCommitMillis();
+        this.groupCommitRecords = Math.max(1, options.getGroupCommitRecords());
+    }
+
+    public static Path pathFor(File file) {
+        return file.toPath().resolveSibling(file.getName() + ".journal");
+    }
+
+    // Проигрывает запечатанные сегменты по порядку, затем активный файл
+    public synchronized void replay(Consumer<String> consumer) {
+        records = 0;
+        size = 0;
+        for (long segment : segments()) {
+            replayFile(segmentPath(segment), consumer);
+        }
+        replayFile(path, consumer);
+    }
+
+    public synchronized void append(String record) {
+        appendAll(List.of(record));
+    }
+
+    // Пачка записей уходит одной записью в файл и одним fsync
+    public synchronized void appendAll(List<String> batch) {
+        if (batch.isEmpty()) return;
+
+        StringBuilder text = new StringBuilder();
+        batch.forEach(record -> text.append(record).append('\n'));
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        records += batch.size();
+        size += bytes.length;
+
+        if (durability != FileStorageOptions.Durability.GROUP_COMMIT) {
+            write(bytes);
+            return;
+        }
+
+        group.write(bytes, 0, bytes.length);
+        groupRecords += batch.size();
+        if (groupRecords >= groupCommitRecords) {
+            flush();
+        } else if (groupFlusher == null) {
+            groupFlusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-group-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+            groupFlusher.scheduleWithFixedDelay(this::flushQuietly, groupCommitMillis, groupCommitMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Сбрасывает накопленную пачку одной записью и одним fsync
+    public synchronized void flush() {
+        if (groupRecords == 0) return;
+
+        write(group.toByteArray());
+        group.reset();
+        groupRecords = 0;
+    }
+
+    // Запечатывает активный файл и возвращает номер сегмента; новые записи пойдут в пустой активный файл
+    public synchronized long rotate() {
+        flush();
+        List<Long> existing = segments();
+        long segment = existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1;
+        try {
+            closeChannel();
+            if (Files.exists(path)) {
+                Files.move(path, segmentPath(segment), StandardCopyOption.ATOMIC_MOVE);
+            }
+            records = 0;
+            size = 0;
+            return segment;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка ротации журнала", e);
+        }
+    }
+
+    // Вызывается из потока сжатия: трогает только запечатанные сегменты, но не активный файл
+    public void deleteSegmentsUpTo(long segment) {
+        try {
+            for (long existing : segments()) {
+                if (existing <= segment) {
+                    Files.deleteIfExists(segmentPath(existing));
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка удаления сегментов журнала", e);
+        }
+    }
+
+    // Удаляет весь журнал - после полного сохранения снимка он больше не нужен
+    public synchronized void clear() {
+        // Всё, что лежит в пачке, уже попало в снимок
+        group.reset();
+        groupRecords = 0;
+        try {
+            closeChannel();
+            deleteSegmentsUpTo(Long.MAX_VALUE);
+            Files.deleteIfExists(path);
+            records = 0;
+            size = 0;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка очистки журнала", e);
+        }
+    }
+
+    public boolean exists() {
+        return Files.exists(path) || !segments().isEmpty();
+    }
+
+    public long getRecordCount() {
+        return records;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        if (groupFlusher != null) {
+            groupFlusher.shutdown();
+            groupFlusher = null;
+        }
+        closeChannel();
+    }
+
+    private void write(byte[] bytes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            FileChannel out = channel();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            if (durability != FileStorageOptions.Durability.OS_BUFFERED) {
+                out.force(false);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи в журнал", e);
+        }
+    }
+
+    private synchronized void flushQuietly() {
+        try {
+            flush();
+        } catch (ManagerSaveException e) {
+            // Пачка остаётся в памяти и будет записана следующей попыткой
+            System.err.println(e.getMessage() + ": " + e.getCause().getMessage());
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+
+        try {
+            channel.close();
+            channel = null;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка закрытия журнала", e);
+        }
+    }
+
+    private void replayFile(Path file, Consumer<String> consumer) {
+        if (!Files.exists(file)) return;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                consumer.accept(line);
+                records++;
+            }
+            size += Files.size(file);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения журнала", e);
+        }
+    }
+
+    private List<Long> segments() {
+        Path directory = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName().toString() + ".";
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.length() > prefix.length())
+                    .map(name -> name.substring(prefix.length()))
+                    .filter(suffix -> suffix.chars().allMatch(Character::isDigit))
+                    .map(Long::parseLong)
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения каталога журнала", e);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return path.resolveSibling(path.getFileName().toString() + "." + segment);
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+}
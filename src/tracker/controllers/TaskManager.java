@@ -4,6 +4,7 @@ import tracker.model.Epic;
 import tracker.model.Subtask;
 import tracker.model.Task;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface TaskManager {
@@ -51,4 +52,15 @@ public interface TaskManager {
 
     List<Task> getHistory();
 
+    // Пакетные операции: пачка проверяется целиком и применяется либо вся, либо никак
+    void createTasks(List<Task> tasks);
+
+    void createSubtasks(List<Subtask> subtasks);
+
+    // Обновление задач любых типов; id, которых нет в менеджере, пропускаются
+    void updateAll(List<? extends Task> tasks);
+
+    // Удаление задач любых типов по id; эпики удаляются вместе с подзадачами
+    void deleteByIds(Collection<Integer> ids);
+
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package tracker.controllers;
+
+import tracker.model.Task;
+
+import java.util.List;
+
+// Страница выборки. Курсор - позиция последней задачи страницы в порядке запроса; следующая страница
+// продолжается строго после неё, поэтому удаление или добавление задач между запросами не сдвигает страницы
+public class TaskPage {
+    private final List<Task> items;
+    private final String nextCursor;
+
+    public TaskPage(List<Task> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Task> getItems() {
+        return items;
+    }
+
+    // null, если страница последняя
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
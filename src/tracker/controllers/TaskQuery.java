@@ -0,0 +1,111 @@
+package tracker.controllers;
+
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.time.LocalDateTime;
+
+// Условия выборки для InMemoryTaskManager.query и page; незаданное условие (null) не фильтрует.
+// Окно времени [from, to) отбирает задачи, чей интервал его пересекает; задачи без времени в окно не попадают
+public class TaskQuery {
+    // ID - по возрастанию id, все типы; START_TIME - по списку приоритетов, только задачи и подзадачи со временем.
+    // Страница по ID с заданным типом обходит карту этого типа с курсора и трогает только свои задачи.
+    // Без типа, а также если карта заполнялась не по возрастанию id или это не IntHashMap (ConcurrentTaskManager),
+    // перебираются все id после курсора, включая удалённые и чужого типа: страница редкого типа
+    // на большой доске стоит перебора её id
+    public enum Order { ID, START_TIME }
+
+    private Task.Type type;
+    private Task.Status status;
+    private Integer epicId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Order order = Order.ID;
+
+    public static TaskQuery all() {
+        return new TaskQuery();
+    }
+
+    public static TaskQuery ofType(Task.Type type) {
+        TaskQuery query = new TaskQuery();
+        query.setType(type);
+        return query;
+    }
+
+    public static TaskQuery ofEpic(int epicId) {
+        TaskQuery query = new TaskQuery();
+        query.setEpicId(epicId);
+        return query;
+    }
+
+    // Порядок по времени: обход идёт только по окну, а не по всему списку приоритетов
+    public static TaskQuery between(LocalDateTime from, LocalDateTime to) {
+        TaskQuery query = new TaskQuery();
+        query.setFrom(from);
+        query.setTo(to);
+        query.setOrder(Order.START_TIME);
+        return query;
+    }
+
+    public boolean matches(Task task) {
+        if (task == null) return false;
+        if (type != null && task.getType() != type) return false;
+        if (status != null && task.getStatus() != status) return false;
+        if (epicId != null && !(task instanceof Subtask && ((Subtask) task).getEpicId() == epicId)) return false;
+        if (from == null && to == null) return true;
+
+        LocalDateTime start = task.getStartTime();
+        if (start == null) return false;
+        if (to != null && !start.isBefore(to)) return false;
+        // Задача нулевой длины в самом начале окна в него попадает
+        return from == null || !start.isBefore(from) || TimeIntervalIndex.endOf(task).isAfter(from);
+    }
+
+    public Task.Type getType() {
+        return type;
+    }
+
+    public void setType(Task.Type type) {
+        this.type = type;
+    }
+
+    public Task.Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Task.Status status) {
+        this.status = status;
+    }
+
+    public Integer getEpicId() {
+        return epicId;
+    }
+
+    public void setEpicId(Integer epicId) {
+        this.epicId = epicId;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public void setOrder(Order order) {
+        this.order = order;
+    }
+}
@@ -0,0 +1,197 @@
+package tracker.controllers;
+
+import tracker.model.Task;
+import tracker.util.Versioned;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Индекс интервалов [startTime, endTime), упорядоченный по началу, затем по концу и id.
+// Служит одновременно списком приоритетов: задачи с одинаковым startTime не схлопываются,
+// а по id хранится ключ записи, так что удаление и перевставка стоят O(log n).
+// Менеджер не допускает пересечений, поэтому концы интервалов в этом порядке тоже не убывают,
+// и для проверки конфликта достаточно посмотреть на ближайший интервал, начинающийся раньше конца новой задачи.
+public class TimeIntervalIndex implements Versioned {
+    private static final class Slot implements Comparable<Slot> {
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final int id;
+
+        Slot(LocalDateTime start, LocalDateTime end, int id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Slot other) {
+            int result = start.compareTo(other.start);
+            if (result != 0) return result;
+            result = end.compareTo(other.end);
+            if (result != 0) return result;
+            return Integer.compare(id, other.id);
+        }
+    }
+
+    private final NavigableMap<Slot, Task> slots = new TreeMap<>();
+    private final Map<Integer, Slot> slotsById = new HashMap<>();
+    private long version;
+
+    public void add(Task task) {
+        if (task == null || task.getStartTime() == null) return;
+
+        remove(task.getId());
+        Slot slot = new Slot(task.getStartTime(), endOf(task), task.getId());
+        slots.put(slot, task);
+        slotsById.put(task.getId(), slot);
+        version++;
+    }
+
+    public Task remove(int id) {
+        Slot slot = slotsById.remove(id);
+        if (slot == null) return null;
+
+        version++;
+        return slots.remove(slot);
+    }
+
+    public boolean contains(int id) {
+        return slotsById.containsKey(id);
+    }
+
+    public Task findOverlap(Task task) {
+        return task != null ? findOverlap(task, id -> id == task.getId()) : null;
+    }
+
+    // Интервалы с id, для которых ignored вернул true, пропускаются - например, задачи,
+    // которые пачка обновлений сама переставляет. Среди оставшихся по-прежнему достаточно ближайшего
+    public Task findOverlap(Task task, IntPredicate ignored) {
+        if (task == null || task.getStartTime() == null) return null;
+
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = endOf(task);
+        // Все интервалы, начинающиеся строго раньше end, — от ближайшего к самому раннему
+        Slot probe = new Slot(end, LocalDateTime.MIN, Integer.MIN_VALUE);
+        Iterator<Map.Entry<Slot, Task>> candidates = slots.headMap(probe, false).descendingMap().entrySet().iterator();
+        while (candidates.hasNext()) {
+            Map.Entry<Slot, Task> candidate = candidates.next();
+            if (ignored.test(candidate.getKey().id)) continue;
+            return candidate.getKey().end.isAfter(start) ? candidate.getValue() : null;
+        }
+        return null;
+    }
+
+    public boolean hasOverlap(Task task) {
+        return findOverlap(task) != null;
+    }
+
+    // Задачи, начинающиеся в [from, to), по порядку индекса: O(log n + k)
+    public List<Task> startingBetween(LocalDateTime from, LocalDateTime to) {
+        Slot lower = new Slot(from, LocalDateTime.MIN, Integer.MIN_VALUE);
+        Slot upper = new Slot(to, LocalDateTime.MIN, Integer.MIN_VALUE);
+        if (lower.compareTo(upper) >= 0) return new ArrayList<>();
+        return new ArrayList<>(slots.subMap(lower, true, upper, false).values());
+    }
+
+    // Задачи, идущие в момент instant: start <= instant < end. Концы не убывают, поэтому идём назад
+    // от последнего интервала, начавшегося не позже instant, пока интервалы ещё не кончились
+    public List<Task> activeAt(LocalDateTime instant) {
+        List<Task> active = new ArrayList<>();
+        for (Map.Entry<Slot, Task> entry : slots.headMap(new Slot(instant, LocalDateTime.MAX, Integer.MAX_VALUE), true).descendingMap().entrySet()) {
+            if (!entry.getKey().end.isAfter(instant)) break;
+            active.add(entry.getValue());
+        }
+        Collections.reverse(active);
+        return active;
+    }
+
+    // Первые limit задач, начинающихся не раньше instant
+    public List<Task> nextAfter(LocalDateTime instant, int limit) {
+        List<Task> next = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<Task> iterator = slots.tailMap(new Slot(instant, LocalDateTime.MIN, Integer.MIN_VALUE), true).values().iterator();
+        while (next.size() < limit && iterator.hasNext()) {
+            next.add(iterator.next());
+        }
+        return next;
+    }
+
+    // Начало первого свободного промежутка длины duration не раньше earliest - за один проход
+    // по интервалам, начиная с последнего начавшегося раньше earliest: O(log n + k), где k - интервалы,
+    // которые пришлось перешагнуть. Пересечение понимается как в findOverlap. Интервалы с id,
+    // для которых ignored вернул true, промежуток не занимают
+    public LocalDateTime findFreeSlot(LocalDateTime earliest, Duration duration, IntPredicate ignored) {
+        LocalDateTime candidate = earliest;
+        Slot before = slots.lowerKey(new Slot(earliest, LocalDateTime.MIN, Integer.MIN_VALUE));
+        for (Slot slot : (before != null ? slots.tailMap(before, true) : slots).keySet()) {
+            if (ignored.test(slot.id)) continue;
+
+            LocalDateTime candidateEnd = candidate.plus(duration);
+            if (!slot.start.isBefore(candidateEnd)) break;
+            if (slot.end.isAfter(candidate)) {
+                candidate = slot.end;
+            }
+        }
+        return candidate;
+    }
+
+    // Ленивый обход по порядку индекса интервалов, которые могут пересекать [from, to); null - граница открыта.
+    // Обход начинается с последнего интервала, начавшегося раньше from: более ранние кончаются не позже
+    // его начала. Точную проверку пересечения делает вызывающий
+    public Stream<Task> window(LocalDateTime from, LocalDateTime to) {
+        Slot first = from != null ? slots.lowerKey(new Slot(from, LocalDateTime.MIN, Integer.MIN_VALUE)) : null;
+        return range(first, true, to);
+    }
+
+    // Продолжение обхода строго после позиции (start, end, id) - например, последней задачи прошлой страницы
+    public Stream<Task> windowAfter(LocalDateTime start, LocalDateTime end, int id, LocalDateTime to) {
+        return range(new Slot(start, end, id), false, to);
+    }
+
+    private Stream<Task> range(Slot lower, boolean inclusive, LocalDateTime to) {
+        Slot upper = to != null ? new Slot(to, LocalDateTime.MIN, Integer.MIN_VALUE) : null;
+        if (lower != null && upper != null && lower.compareTo(upper) >= 0) return Stream.empty();
+
+        NavigableMap<Slot, Task> tail = lower != null ? slots.tailMap(lower, inclusive) : slots;
+        Collection<Task> range = (upper != null ? tail.headMap(upper, false) : tail).values();
+        // Сплитератор коллекции по умолчанию сначала считает её размер, а у подкарты TreeMap это обход всего диапазона
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(range.iterator(), Spliterator.ORDERED), false);
+    }
+
+    public Collection<Task> values() {
+        return Collections.unmodifiableCollection(slots.values());
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public void clear() {
+        slots.clear();
+        slotsById.clear();
+        version++;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    static LocalDateTime endOf(Task task) {
+        LocalDateTime end = task.getEndTime();
+        return end != null ? end : task.getStartTime();
+    }
+}
@@ -1,6 +1,10 @@
 package tracker.exceptions;
 
 public class ManagerSaveException extends RuntimeException {
+    public ManagerSaveException(String message) {
+        super(message);
+    }
+
     public ManagerSaveException(String message, Throwable cause) {
         super(message, cause);
     }
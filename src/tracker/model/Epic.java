@@ -1,89 +1,193 @@
 package tracker.model;
 
+import tracker.util.IntHashMap;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
 
 public class Epic extends Task {
-    private List<Integer> subtaskIds;
+    // Подзадачи читаются и меняются под монитором эпика: эпик могут читать из нескольких потоков.
+    // Ключи карты вкладов - это и есть множество подзадач: порядок добавления, add/remove/contains за O(1).
+    // Вклад, с которым учтена каждая подзадача, и агрегаты по ним: число подзадач в каждом статусе,
+    // сумма длительностей и упорядоченные начала и окончания (время -> сколько подзадач).
+    // Статус и время эпика выводятся из агрегатов без обхода подзадач.
+    // Вклад хранится отдельно, потому что подзадачу обычно меняют прямо в объекте
+    private final IntHashMap<Contribution> contributions = new IntHashMap<>();
+    private final int[] statusCounts = new int[Status.values().length];
+    private final TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> ends = new TreeMap<>();
+    private Duration totalDuration = Duration.ZERO;
     private LocalDateTime endTime;
 
     public Epic(String name, String description) {
         super(name, description);
-        this.subtaskIds = new ArrayList<>();
         this.duration = Duration.ZERO;
         this.startTime = null;
         this.endTime = null;
     }
 
-    public List<Integer> getSubtaskIds() {
-        return List.copyOf(subtaskIds);
+    // Неизменяемая копия; внутри менеджера удобнее forEachSubtaskId
+    public synchronized List<Integer> getSubtaskIds() {
+        Integer[] ids = new Integer[contributions.size()];
+        int[] next = {0};
+        contributions.forEachKey(id -> ids[next[0]++] = id);
+        return List.of(ids);
     }
 
-    public void addSubtaskId(int subtaskId) {
-        subtaskIds.add(subtaskId);
+    // Обход подзадач без копирования; действие выполняется под монитором эпика
+    public synchronized void forEachSubtaskId(IntConsumer action) {
+        contributions.forEachKey(action);
     }
 
-    public void setSubtaskIds(List<Integer> subtaskIds) {
-        this.subtaskIds.clear();
-        this.subtaskIds.addAll(subtaskIds);
+    public synchronized boolean containsSubtask(int subtaskId) {
+        return contributions.containsKey(subtaskId);
     }
 
-    public void removeSubtaskId(int subtaskId) {
-        subtaskIds.remove((Integer) subtaskId);
+    public synchronized int getSubtaskCount() {
+        return contributions.size();
     }
 
-    @Override
-    public Type getType() {
-        return Type.EPIC;
+    // Подзадача с неизвестным статусом учитывается как NEW и без времени
+    public synchronized void addSubtaskId(int subtaskId) {
+        countSubtask(subtaskId, new Contribution(Status.NEW, null, null, null));
     }
 
-    @Override
-    public LocalDateTime getEndTime() {
-        return endTime;
+    public synchronized void setSubtaskIds(List<Integer> subtaskIds) {
+        clearSubtasks();
+        subtaskIds.forEach(this::addSubtaskId);
+    }
+
+    public synchronized void removeSubtaskId(int subtaskId) {
+        dropSubtask(subtaskId);
+    }
+
+    // Добавляет подзадачу или пересчитывает её вклад, если она уже в эпике
+    public synchronized void applySubtask(Subtask subtask) {
+        countSubtask(subtask.getId(), new Contribution(subtask.getStatus(), subtask.getStartTime(),
+                subtask.getEndTime(), subtask.getDuration()));
     }
 
-    public void updateTimeFields(List<Subtask> subtasksList) {
-        if (subtasksList == null || subtasksList.isEmpty()) {
-            this.startTime = null;
-            this.duration = Duration.ZERO;
-            this.endTime = null;
-            return;
+    public synchronized void dropSubtask(int subtaskId) {
+        Contribution previous = contributions.remove(subtaskId);
+        if (previous != null) {
+            withdraw(previous);
         }
+    }
 
-        LocalDateTime earliestStart = null;
-        LocalDateTime latestEnd = null;
-        Duration totalDuration = Duration.ZERO;
-        boolean hasValidSubtasks = false;
+    public synchronized void clearSubtasks() {
+        contributions.clear();
+        Arrays.fill(statusCounts, 0);
+        starts.clear();
+        ends.clear();
+        totalDuration = Duration.ZERO;
+    }
 
-        for (Subtask subtask : subtasksList) {
-            if (subtask == null || subtask.getStartTime() == null) {
-                continue;
+    // Переносит подзадачи вместе с учтённым вкладом из прежней версии эпика
+    public void takeSubtasksFrom(Epic previous) {
+        if (previous == this) return;
+
+        List<Integer> ids = new ArrayList<>();
+        List<Contribution> counted = new ArrayList<>();
+        synchronized (previous) {
+            previous.contributions.forEachKey(id -> {
+                ids.add(id);
+                counted.add(previous.contributions.get(id));
+            });
+        }
+        synchronized (this) {
+            clearSubtasks();
+            for (int i = 0; i < ids.size(); i++) {
+                countSubtask(ids.get(i), counted.get(i));
             }
+        }
+    }
+
+    // NEW - нет подзадач или все новые, DONE - все выполнены, иначе IN_PROGRESS
+    public synchronized Status getSubtaskStatus() {
+        int total = contributions.size();
+        if (total == 0 || statusCounts[Status.NEW.ordinal()] == total) return Status.NEW;
+        if (statusCounts[Status.DONE.ordinal()] == total) return Status.DONE;
+        return Status.IN_PROGRESS;
+    }
+
+    // Переносит агрегаты по времени в поля эпика: O(log k) на поиск крайних значений
+    public synchronized void refreshTimeFields() {
+        this.startTime = starts.isEmpty() ? null : starts.firstKey();
+        this.endTime = ends.isEmpty() ? null : ends.lastKey();
+        this.duration = totalDuration;
+    }
 
-            hasValidSubtasks = true;
+    private void countSubtask(int subtaskId, Contribution contribution) {
+        Contribution previous = contributions.put(subtaskId, contribution);
+        if (previous != null) {
+            withdraw(previous);
+        }
 
-            if (earliestStart == null || subtask.getStartTime().isBefore(earliestStart)) {
-                earliestStart = subtask.getStartTime();
+        statusCounts[contribution.status.ordinal()]++;
+        // Как и раньше, во время эпика идут только подзадачи с заданным началом
+        if (contribution.start != null) {
+            starts.merge(contribution.start, 1, Integer::sum);
+            if (contribution.end != null) {
+                ends.merge(contribution.end, 1, Integer::sum);
+            }
+            if (contribution.duration != null) {
+                totalDuration = totalDuration.plus(contribution.duration);
             }
+        }
+    }
 
-            LocalDateTime subtaskEnd = subtask.getEndTime();
-            if (subtaskEnd != null && (latestEnd == null || subtaskEnd.isAfter(latestEnd))) {
-                latestEnd = subtaskEnd;
+    private void withdraw(Contribution contribution) {
+        statusCounts[contribution.status.ordinal()]--;
+        if (contribution.start != null) {
+            release(starts, contribution.start);
+            if (contribution.end != null) {
+                release(ends, contribution.end);
+            }
+            if (contribution.duration != null) {
+                totalDuration = totalDuration.minus(contribution.duration);
             }
+        }
+    }
+
+    private static void release(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    @Override
+    public Type getType() {
+        return Type.EPIC;
+    }
+
+    @Override
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
 
-            totalDuration = totalDuration.plus(subtask.getDuration());
+    // Полный пересчёт: подзадачами эпика становится переданный список
+    public synchronized void updateTimeFields(List<Subtask> subtasksList) {
+        clearSubtasks();
+        if (subtasksList != null) {
+            subtasksList.stream().filter(subtask -> subtask != null).forEach(this::applySubtask);
         }
+        refreshTimeFields();
+    }
 
-        if (hasValidSubtasks) {
-            this.startTime = earliestStart;
-            this.duration = totalDuration;
-            this.endTime = latestEnd;
-        } else {
-            this.startTime = null;
-            this.duration = Duration.ZERO;
-            this.endTime = null;
+    private static class Contribution {
+        private final Status status;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final Duration duration;
+
+        private Contribution(Status status, LocalDateTime start, LocalDateTime end, Duration duration) {
+            this.status = status;
+            this.start = start;
+            this.end = end;
+            this.duration = duration;
         }
     }
-}
\ No newline at end of file
+}
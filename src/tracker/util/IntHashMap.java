@@ -0,0 +1,362 @@
+package tracker.util;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+// Карта с ключами int без упаковки: ключи и значения лежат в плотных массивах в порядке вставки,
+// а открытая адресация (линейное пробирование) хранит в int-таблице только номер позиции.
+// Запись стоит 4 байта ключа, ссылку на значение и две ячейки индекса - против узла HashMap и объекта Integer.
+// Удалённая позиция помечается и освобождается при следующей перестройке.
+// Порядок обхода - порядок вставки. Значения null не поддерживаются.
+public class IntHashMap<V> extends AbstractMap<Integer, V> implements IntMap<V>, Versioned {
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+    private static final Object REMOVED = new Object();
+
+    private int[] keys;
+    private Object[] values;
+    // Номер позиции в плотных массивах + 1; EMPTY - свободно, DELETED - запись удалена
+    private int[] index;
+    private int shift;
+    private int size;
+    private int used;
+    private int modCount;
+    // В отличие от modCount учитывает и замену значения по существующему ключу
+    private long version;
+    // Ключи в плотном массиве идут по возрастанию - так бывает, когда id выдаются подряд
+    private boolean ascending = true;
+
+    public IntHashMap() {
+        this(16);
+    }
+
+    public IntHashMap(int expectedSize) {
+        allocate(Math.max(4, expectedSize));
+    }
+
+    @Override
+    public V get(int key) {
+        int position = find(key);
+        return position >= 0 ? value(position) : null;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("IntHashMap не хранит null");
+        }
+
+        int position = find(key);
+        if (position >= 0) {
+            V previous = value(position);
+            values[position] = value;
+            version++;
+            return previous;
+        }
+
+        if (used == keys.length) {
+            // Много удалённых позиций - достаточно уплотнить, иначе растём
+            rebuild(size * 2 < used ? keys.length : keys.length * 2);
+        }
+        if (used > 0 && key <= keys[used - 1]) {
+            ascending = false;
+        }
+        keys[used] = key;
+        values[used] = value;
+        used++;
+        size++;
+        modCount++;
+        version++;
+
+        for (int slot = slot(key); ; slot = (slot + 1) & (index.length - 1)) {
+            if (index[slot] == EMPTY || index[slot] == DELETED) {
+                index[slot] = used;
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public V remove(int key) {
+        for (int slot = slot(key); index[slot] != EMPTY; slot = (slot + 1) & (index.length - 1)) {
+            int position = index[slot] - 1;
+            if (position >= 0 && keys[position] == key) {
+                V previous = value(position);
+                index[slot] = DELETED;
+                values[position] = REMOVED;
+                size--;
+                modCount++;
+                version++;
+                return previous;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    // Порядок вставки совпадает с порядком ключей: тогда доступен valuesAfter
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    // Значения с ключом больше key по возрастанию ключа: начало ищется двоичным поиском,
+    // дальше обход идёт только по нужным позициям. Удалённые позиции сохраняют ключ,
+    // поэтому массив ключей остаётся упорядоченным и с ними
+    public Iterator<V> valuesAfter(int key) {
+        if (!ascending) {
+            throw new IllegalStateException("Ключи вставлялись не по возрастанию");
+        }
+
+        int low = 0;
+        int high = used;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return new PositionIterator<V>(low) {
+            @Override
+            V at(int position) {
+                return value(position);
+            }
+        };
+    }
+
+    // Обход ключей в порядке вставки без упаковки и без объекта-итератора
+    public void forEachKey(IntConsumer action) {
+        for (int position = 0; position < used; position++) {
+            if (values[position] != REMOVED) {
+                action.accept(keys[position]);
+            }
+        }
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer ? get(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && containsKey(((Integer) key).intValue());
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer ? remove(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(index, EMPTY);
+        Arrays.fill(values, 0, used, null);
+        size = 0;
+        used = 0;
+        ascending = true;
+        modCount++;
+        version++;
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new PositionIterator<>() {
+                    @Override
+                    Integer at(int position) {
+                        return keys[position];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return containsKey(key);
+            }
+        };
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new PositionIterator<>() {
+                    @Override
+                    V at(int position) {
+                        return value(position);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<Integer, V>> iterator() {
+                return new PositionIterator<>() {
+                    @Override
+                    Map.Entry<Integer, V> at(int position) {
+                        return new SimpleImmutableEntry<>(keys[position], value(position));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int position) {
+        return (V) values[position];
+    }
+
+    private int find(int key) {
+        for (int slot = slot(key); index[slot] != EMPTY; slot = (slot + 1) & (index.length - 1)) {
+            int position = index[slot] - 1;
+            if (position >= 0 && keys[position] == key) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    // Фибоначчиево хеширование: последовательные id расходятся по всей таблице
+    private int slot(int key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        // Таблица индекса заполнена не больше чем наполовину
+        int bits = 32 - Integer.numberOfLeadingZeros(capacity * 2 - 1);
+        index = new int[1 << bits];
+        shift = 64 - bits;
+    }
+
+    private void rebuild(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldUsed = used;
+
+        allocate(capacity);
+        size = 0;
+        used = 0;
+        // Нарушившие порядок ключи могли быть удалены - порядок проверяется заново
+        ascending = true;
+        for (int i = 0; i < oldUsed; i++) {
+            if (oldValues[i] != REMOVED) {
+                if (used > 0 && oldKeys[i] <= keys[used - 1]) {
+                    ascending = false;
+                }
+                keys[used] = oldKeys[i];
+                values[used] = oldValues[i];
+                used++;
+                size++;
+                int slot = slot(oldKeys[i]);
+                while (index[slot] != EMPTY) {
+                    slot = (slot + 1) & (index.length - 1);
+                }
+                index[slot] = used;
+            }
+        }
+        modCount++;
+    }
+
+    private abstract class PositionIterator<T> implements Iterator<T> {
+        private int next;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        PositionIterator() {
+            this(0);
+        }
+
+        PositionIterator(int start) {
+            next = skipRemoved(start);
+        }
+
+        abstract T at(int position);
+
+        @Override
+        public boolean hasNext() {
+            return next < used;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (next >= used) throw new NoSuchElementException();
+
+            last = next;
+            next = skipRemoved(next + 1);
+            return at(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) throw new IllegalStateException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+
+            // Удаление только помечает позицию, поэтому обход продолжается с того же места
+            IntHashMap.this.remove(keys[last]);
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+        private int skipRemoved(int position) {
+            while (position < used && values[position] == REMOVED) {
+                position++;
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package tracker.util;
+
+import java.util.Map;
+
+// Карта с ключами int: перегрузки с int выбираются компилятором раньше методов Map с упаковкой,
+// поэтому вызов с примитивным id не создаёт Integer, если реализация хранит ключи без упаковки
+public interface IntMap<V> extends Map<Integer, V> {
+    V get(int key);
+
+    boolean containsKey(int key);
+
+    V put(int key, V value);
+
+    V remove(int key);
+}
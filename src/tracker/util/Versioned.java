@@ -0,0 +1,6 @@
+package tracker.util;
+
+// Хранилище с номером версии: номер растёт при каждом изменении состава и не меняется при чтении
+public interface Versioned {
+    long getVersion();
+}
@@ -0,0 +1,45 @@
+package tracker.util;
+
+import java.util.Collections;
+import java.util.List;
+
+// Неизменяемый список, собранный при определённой версии источника. Пока версия та же,
+// get отдаёт тот же объект без копирования и выделения памяти. Снимок публикуется одной
+// volatile-записью, поэтому читать и обновлять его можно из многих потоков; при гонке
+// два потока просто соберут список дважды.
+public class VersionedSnapshot<T> {
+    // Версия, при которой список не кэшируется: источник не умеет считать изменения
+    public static final long UNVERSIONED = -1;
+
+    private volatile Stamp<T> stamp;
+
+    // null, если снимка для этой версии нет и его нужно собрать
+    public List<T> get(long version) {
+        Stamp<T> current = stamp;
+        return current != null && version != UNVERSIONED && current.version == version ? current.list : null;
+    }
+
+    // Версию нужно прочитать до сборки списка: изменение во время сборки поднимет её,
+    // и следующий вызов get соберёт список заново
+    public List<T> update(long version, List<T> list) {
+        List<T> view = Collections.unmodifiableList(list);
+        if (version != UNVERSIONED) {
+            stamp = new Stamp<>(version, view);
+        }
+        return view;
+    }
+
+    public void clear() {
+        stamp = null;
+    }
+
+    private static class Stamp<T> {
+        private final long version;
+        private final List<T> list;
+
+        private Stamp(long version, List<T> list) {
+            this.version = version;
+            this.list = list;
+        }
+    }
+}
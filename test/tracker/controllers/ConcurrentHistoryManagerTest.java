@@ -0,0 +1,117 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tracker.model.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHistoryManagerTest {
+    private ConcurrentHistoryManager history;
+
+    @BeforeEach
+    void setUp() {
+        history = new ConcurrentHistoryManager();
+    }
+
+    private static Task task(int id) {
+        Task task = new Task("Задача " + id, "");
+        task.setId(id);
+        return task;
+    }
+
+    @Test
+    void shouldKeepRecencyOrderLikeInMemoryHistory() {
+        history.add(task(1));
+        history.add(task(2));
+        history.add(task(3));
+        history.add(task(1));
+        history.remove(2);
+
+        List<Integer> ids = new ArrayList<>();
+        history.getHistory().forEach(task -> ids.add(task.getId()));
+        assertEquals(List.of(3, 1), ids, "Повторный просмотр переносит задачу в конец, удаление убирает её");
+    }
+
+    @Test
+    void shouldApplyBatchesWithoutGetHistory() {
+        InMemoryHistoryManager applied = new InMemoryHistoryManager();
+        ConcurrentHistoryManager batched = new ConcurrentHistoryManager(applied);
+        for (int i = 0; i < 100; i++) {
+            batched.add(task(i));
+        }
+        // Без getHistory в упорядоченную историю попадает только набранная пачка из 64 просмотров
+        assertTrue(applied.size() >= 64, "Полная пачка должна сливаться при записи");
+        assertTrue(applied.size() < 100, "Неполная пачка остаётся в буфере до слияния");
+
+        for (int i = 0; i < 1000; i++) {
+            history.add(task(i % 10));
+        }
+
+        List<Task> tasks = history.getHistory();
+        assertEquals(10, tasks.size());
+        assertEquals(9, tasks.get(9).getId(), "Последней должна быть последняя просмотренная задача");
+    }
+
+    @Test
+    void shouldMergeViewsFromManyThreadsInOrder() throws InterruptedException {
+        int threads = 8;
+        int perThread = 2_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    history.add(task(offset + i));
+                    // Каждая вторая задача удаляется тем же потоком сразу после просмотра
+                    if (i % 2 == 1) history.remove(offset + i);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        List<Task> tasks = history.getHistory();
+        assertEquals(threads * perThread / 2, tasks.size(), "Удаление не должно обгонять просмотр");
+
+        int[] last = new int[threads];
+        Arrays.fill(last, -1);
+        for (Task task : tasks) {
+            int thread = task.getId() / perThread;
+            assertEquals(0, task.getId() % 2, "Удалённая задача вернулась в историю");
+            assertTrue(task.getId() > last[thread], "Порядок просмотров одного потока должен сохраняться");
+            last[thread] = task.getId();
+        }
+    }
+
+    @Test
+    void shouldDropBuffersOfFinishedThreads() throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            int id = i;
+            Thread worker = new Thread(() -> history.add(task(id)));
+            worker.start();
+            worker.join();
+        }
+        assertTrue(history.getBufferCount() <= 2, "Буферы завершившихся потоков не должны копиться");
+
+        List<Task> tasks = history.getHistory();
+        assertEquals(200, tasks.size(), "Просмотры завершившихся потоков не должны теряться");
+        assertEquals(199, tasks.get(199).getId());
+        assertEquals(0, history.getBufferCount());
+    }
+}
@@ -0,0 +1,228 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.Test;
+import tracker.exceptions.TimeConflictException;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final int THREADS = 8;
+
+    @Override
+    protected ConcurrentTaskManager createTaskManager() {
+        return Managers.getConcurrent();
+    }
+
+    // Запускает действие одновременно в нескольких потоках и ждёт завершения
+    private void runConcurrently(int threads, Callable<Void> action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Callable<Void>> calls = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                calls.add(() -> {
+                    start.await();
+                    return action.call();
+                });
+            }
+            List<Future<Void>> futures = new ArrayList<>();
+            calls.forEach(call -> futures.add(executor.submit(call)));
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldGenerateUniqueIdsAcrossThreads() throws Exception {
+        runConcurrently(THREADS, () -> {
+            for (int i = 0; i < 500; i++) {
+                manager.createTask(new Task("Задача", ""));
+            }
+            return null;
+        });
+
+        Set<Integer> ids = new HashSet<>();
+        manager.getAllTasks().forEach(task -> ids.add(task.getId()));
+        assertEquals(THREADS * 500, ids.size(), "id не должны повторяться");
+    }
+
+    @Test
+    void shouldAcceptOnlyOneTaskForTheSameSlot() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        AtomicInteger conflicts = new AtomicInteger();
+
+        runConcurrently(THREADS, () -> {
+            Task task = new Task("Задача", "");
+            task.setStartTime(start);
+            task.setDuration(Duration.ofMinutes(30));
+            try {
+                manager.createTask(task);
+            } catch (TimeConflictException e) {
+                conflicts.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertEquals(THREADS - 1, conflicts.get(), "Проверка пересечения и вставка должны быть атомарными");
+        assertEquals(1, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldKeepEpicConsistentUnderConcurrentSubtasks() throws Exception {
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+        AtomicInteger slot = new AtomicInteger();
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+        runConcurrently(THREADS, () -> {
+            for (int i = 0; i < 100; i++) {
+                Subtask subtask = new Subtask("Подзадача", "", epic.getId());
+                subtask.setStartTime(base.plusMinutes(slot.getAndIncrement() * 10L));
+                subtask.setDuration(Duration.ofMinutes(5));
+                subtask.setStatus(Task.Status.DONE);
+                manager.createSubtask(subtask);
+            }
+            return null;
+        });
+
+        Epic loaded = manager.getEpic(epic.getId());
+        assertEquals(THREADS * 100, loaded.getSubtaskIds().size(), "Ни одна подзадача не должна потеряться");
+        assertEquals(Task.Status.DONE, loaded.getStatus());
+        assertEquals(base, loaded.getStartTime());
+        assertEquals(base.plusMinutes((THREADS * 100 - 1) * 10L + 5), loaded.getEndTime());
+    }
+
+    @Test
+    void shouldDropUntimedTaskFromScheduleWhenTimeClearedInPlace() {
+        Task task = new Task("Задача", "");
+        task.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        task.setDuration(Duration.ofMinutes(30));
+        manager.createTask(task);
+
+        task.setStartTime(null);
+        manager.updateTask(task);
+
+        assertTrue(manager.getPrioritizedTasks().isEmpty(), "Задача без времени не должна оставаться в индексе");
+    }
+
+    @Test
+    void shouldDeleteWhileOtherThreadsRead() throws Exception {
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+        for (int i = 0; i < 200; i++) {
+            manager.createSubtask(new Subtask("Подзадача " + i, "", epic.getId()));
+        }
+        List<Subtask> created = manager.getAllSubtasks();
+
+        AtomicInteger turn = new AtomicInteger();
+        runConcurrently(THREADS, () -> {
+            if (turn.getAndIncrement() == 0) {
+                created.forEach(subtask -> manager.deleteSubtask(subtask.getId()));
+            } else {
+                for (Subtask subtask : created) {
+                    manager.getSubtask(subtask.getId());
+                    manager.getEpic(epic.getId()).getSubtaskIds();
+                }
+            }
+            return null;
+        });
+
+        assertTrue(manager.getAllSubtasks().isEmpty());
+        assertTrue(manager.getEpic(epic.getId()).getSubtaskIds().isEmpty());
+        assertEquals(List.of(manager.getEpic(epic.getId())), manager.getHistory(), "Удалённые подзадачи уходят из истории");
+    }
+
+    @Test
+    void shouldNotServeStaleViewsAfterConcurrentWrites() throws Exception {
+        runConcurrently(THREADS, () -> {
+            for (int i = 0; i < 200; i++) {
+                manager.createTask(new Task("Задача " + i, ""));
+                manager.getTasksView();
+            }
+            return null;
+        });
+
+        List<Task> view = manager.getTasksView();
+        assertEquals(THREADS * 200, view.size(), "Последний снимок должен видеть все созданные задачи");
+        assertSame(view, manager.getTasksView());
+        assertEquals(new HashSet<>(manager.getAllTasks()), new HashSet<>(view));
+    }
+
+    @Test
+    void shouldKeepEpicsConsistentWhenDeletingMovedSubtasks() throws Exception {
+        Epic from = new Epic("Откуда", "");
+        Epic to = new Epic("Куда", "");
+        manager.createEpic(from);
+        manager.createEpic(to);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Subtask> created = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            Subtask subtask = new Subtask("Подзадача", "", from.getId());
+            subtask.setStartTime(base.plusMinutes(i * 10L));
+            subtask.setDuration(Duration.ofMinutes(5));
+            subtask.setStatus(Task.Status.DONE);
+            manager.createSubtask(subtask);
+            created.add(subtask);
+        }
+
+        // Половина потоков переносит подзадачи в другой эпик, половина удаляет те же подзадачи
+        AtomicInteger roles = new AtomicInteger();
+        runConcurrently(THREADS, () -> {
+            boolean mover = roles.getAndIncrement() % 2 == 0;
+            for (Subtask subtask : created) {
+                if (mover) {
+                    Subtask moved = new Subtask(subtask.getName(), "", to.getId());
+                    moved.setId(subtask.getId());
+                    moved.setStartTime(subtask.getStartTime());
+                    moved.setDuration(subtask.getDuration());
+                    moved.setStatus(Task.Status.IN_PROGRESS);
+                    manager.updateSubtask(moved);
+                } else {
+                    manager.deleteSubtask(subtask.getId());
+                }
+            }
+            return null;
+        });
+
+        for (Epic epic : List.of(from, to)) {
+            List<Subtask> remaining = manager.getAllSubtasks().stream()
+                    .filter(subtask -> subtask.getEpicId() == epic.getId())
+                    .collect(Collectors.toList());
+            Epic loaded = manager.getEpic(epic.getId());
+            assertEquals(remaining.stream().map(Task::getId).collect(Collectors.toSet()),
+                    new HashSet<>(loaded.getSubtaskIds()), "Эпик должен знать ровно свои оставшиеся подзадачи");
+            assertEquals(expectedStatus(remaining), loaded.getStatus(), "Статус эпика должен считаться по оставшимся подзадачам");
+            assertEquals(remaining.stream().map(Task::getStartTime).min(LocalDateTime::compareTo).orElse(null),
+                    loaded.getStartTime());
+            assertEquals(remaining.stream().map(Task::getEndTime).max(LocalDateTime::compareTo).orElse(null),
+                    loaded.getEndTime());
+        }
+    }
+
+    private static Task.Status expectedStatus(List<Subtask> subtasks) {
+        if (subtasks.stream().allMatch(subtask -> subtask.getStatus() == Task.Status.NEW)) return Task.Status.NEW;
+        if (subtasks.stream().allMatch(subtask -> subtask.getStatus() == Task.Status.DONE)) return Task.Status.DONE;
+        return Task.Status.IN_PROGRESS;
+    }
+}
@@ -5,9 +5,11 @@ import tracker.model.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,6 +26,7 @@ class FileBackedTaskManagerTest {
     @AfterEach
     void tearDown() {
         tempFile.delete();
+        new TaskJournal(TaskJournal.pathFor(tempFile)).clear();
     }
 
     @Test
@@ -87,4 +90,359 @@ class FileBackedTaskManagerTest {
         assertEquals(Duration.ofHours(4), loadedEpic.getDuration());
         assertEquals(startTime.plusHours(5), loadedEpic.getEndTime());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldAppendToJournalInsteadOfRewritingSnapshot() throws IOException {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(new InMemoryHistoryManager(), tempFile, FileStorageOptions.journaled());
+        long snapshotSize = tempFile.length();
+
+        Task task = new Task("Задача", "описание");
+        journaled.createTask(task);
+        task.setStatus(Task.Status.DONE);
+        journaled.updateTask(task);
+        journaled.close();
+
+        assertEquals(snapshotSize, tempFile.length(), "Снимок не должен перезаписываться на каждую мутацию");
+        assertEquals(2, Files.readAllLines(TaskJournal.pathFor(tempFile)).size(), "Каждая мутация - одна запись журнала");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile, FileStorageOptions.journaled());
+        assertEquals(Task.Status.DONE, loaded.getTask(task.getId()).getStatus());
+        loaded.close();
+    }
+
+    @Test
+    void shouldReplayDeletesFromJournal() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(new InMemoryHistoryManager(), tempFile, FileStorageOptions.journaled());
+
+        Task task = new Task("Задача", "");
+        journaled.createTask(task);
+        Epic epic = new Epic("Эпик", "");
+        journaled.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "", epic.getId());
+        subtask.setStatus(Task.Status.DONE);
+        journaled.createSubtask(subtask);
+        Epic otherEpic = new Epic("Другой эпик", "");
+        journaled.createEpic(otherEpic);
+        Subtask otherSubtask = new Subtask("Другая подзадача", "", otherEpic.getId());
+        journaled.createSubtask(otherSubtask);
+
+        journaled.deleteTask(task.getId());
+        journaled.deleteEpic(epic.getId());
+        journaled.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile, FileStorageOptions.journaled());
+        assertTrue(loaded.getAllTasks().isEmpty());
+        assertNull(loaded.getEpic(epic.getId()));
+        assertNull(loaded.getSubtask(subtask.getId()), "Подзадачи удалённого эпика не должны восстанавливаться");
+        assertEquals(List.of(otherSubtask.getId()), loaded.getEpic(otherEpic.getId()).getSubtaskIds());
+        assertEquals(otherEpic.getId() + 2, nextCreatedId(loaded), "Счётчик id должен продолжаться после восстановленных задач");
+        loaded.close();
+    }
+
+    @Test
+    void shouldFoldJournalIntoSnapshotOnSave() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(new InMemoryHistoryManager(), tempFile, FileStorageOptions.journaled());
+        Task task = new Task("Задача", "");
+        journaled.createTask(task);
+        journaled.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+        loaded.createTask(new Task("Ещё задача", ""));
+
+        assertFalse(Files.exists(TaskJournal.pathFor(tempFile)), "После полного сохранения журнал больше не нужен");
+        assertEquals(2, FileBackedTaskManager.loadFromFile(tempFile).getAllTasks().size());
+    }
+
+    private int nextCreatedId(TaskManager taskManager) {
+        Task probe = new Task("Проба", "");
+        taskManager.createTask(probe);
+        return probe.getId();
+    }
+
+    @Test
+    void shouldCompactJournalIntoSnapshotInBackground() throws IOException {
+        FileBackedTaskManager journaled = Managers.getJournaled(tempFile, 3, 0);
+
+        for (int i = 0; i < 5; i++) {
+            journaled.createTask(new Task("Задача " + i, ""));
+        }
+        journaled.compact().join();
+        journaled.createTask(new Task("После сжатия", ""));
+        journaled.close();
+
+        TaskJournal journal = new TaskJournal(TaskJournal.pathFor(tempFile));
+        journal.replay(record -> { });
+        assertTrue(journal.getRecordCount() < 6, "Сжатые записи должны уйти из журнала");
+        assertTrue(Files.readAllLines(tempFile.toPath()).size() > 3, "Сжатые записи должны попасть в снимок");
+
+        FileBackedTaskManager loaded = Managers.getJournaled(tempFile, 3, 0);
+        assertEquals(6, loaded.getAllTasks().size(), "Снимок вместе с журналом должен содержать все задачи");
+        loaded.close();
+    }
+
+    @Test
+    void shouldRestoreAllMutationsWithGroupCommit() {
+        FileStorageOptions options = FileStorageOptions.journaled();
+        options.setDurability(FileStorageOptions.Durability.GROUP_COMMIT);
+        options.setGroupCommitMillis(60_000);
+        FileBackedTaskManager journaled = Managers.getFileBacked(tempFile, options);
+
+        for (int i = 0; i < 10; i++) {
+            journaled.createTask(new Task("Задача " + i, ""));
+        }
+        journaled.close();
+
+        FileBackedTaskManager loaded = Managers.getFileBacked(tempFile, options);
+        assertEquals(10, loaded.getAllTasks().size(), "close() должен сбрасывать накопленную пачку");
+        loaded.close();
+    }
+
+    @Test
+    void shouldLoadTheSameBoardInParallel() {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        for (int e = 0; e < 20; e++) {
+            Epic epic = new Epic("Эпик " + e, "");
+            manager.createEpic(epic);
+            for (int i = 0; i < 25; i++) {
+                Subtask subtask = new Subtask("Подзадача " + i, "описание", epic.getId());
+                subtask.setStartTime(start.plusMinutes((e * 25L + i) * 10));
+                subtask.setDuration(Duration.ofMinutes(5));
+                subtask.setStatus(i % 2 == 0 ? Task.Status.DONE : Task.Status.NEW);
+                manager.createSubtask(subtask);
+            }
+            manager.createTask(new Task("Задача " + e, ""));
+        }
+
+        FileStorageOptions options = FileStorageOptions.snapshot();
+        options.setLoadParallelism(4);
+        FileBackedTaskManager sequential = FileBackedTaskManager.loadFromFile(tempFile);
+        FileBackedTaskManager parallel = FileBackedTaskManager.loadFromFile(tempFile, options);
+
+        assertEquals(sequential.getAllTasks().size(), parallel.getAllTasks().size());
+        assertEquals(sequential.getAllSubtasks().size(), parallel.getAllSubtasks().size());
+        assertEquals(sequential.getPrioritizedTasks(), parallel.getPrioritizedTasks());
+        for (Epic epic : sequential.getAllEpics()) {
+            Epic loaded = parallel.getEpic(epic.getId());
+            assertEquals(epic.getSubtaskIds(), loaded.getSubtaskIds(), "Порядок подзадач эпика должен сохраняться");
+            assertEquals(epic.getStatus(), loaded.getStatus());
+            assertEquals(epic.getStartTime(), loaded.getStartTime());
+            assertEquals(epic.getEndTime(), loaded.getEndTime());
+        }
+    }
+
+    @Test
+    void shouldSaveAndLoadBinarySnapshot() {
+        FileBackedTaskManager binary = new FileBackedTaskManager(new InMemoryHistoryManager(), tempFile, FileStorageOptions.binary());
+        Epic epic = new Epic("Эпик, с запятой", "описание");
+        binary.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "", epic.getId());
+        subtask.setStartTime(LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES));
+        subtask.setDuration(Duration.ofMinutes(45));
+        subtask.setStatus(Task.Status.DONE);
+        binary.createSubtask(subtask);
+
+        assertTrue(TaskBinaryFormat.isBinary(tempFile.toPath()), "Снимок должен быть записан в двоичном формате");
+
+        // Формат определяется по файлу, настройки загрузки на него не влияют
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+        Epic loadedEpic = loaded.getEpic(epic.getId());
+        assertEquals("Эпик, с запятой", loadedEpic.getName());
+        assertEquals(Task.Status.DONE, loadedEpic.getStatus());
+        assertEquals(subtask.getEndTime(), loadedEpic.getEndTime());
+        assertEquals(List.of(subtask.getId()), loadedEpic.getSubtaskIds());
+    }
+
+    @Test
+    void shouldConvertCsvSnapshotToSmallerBinary() throws IOException {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        for (int i = 0; i < 50; i++) {
+            Task task = new Task("Задача " + i, "описание");
+            task.setStartTime(start.plusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            manager.createTask(task);
+        }
+
+        File binaryFile = File.createTempFile("tasks", ".bin");
+        try {
+            FileBackedTaskManager.convert(tempFile, binaryFile, FileStorageOptions.Format.BINARY);
+
+            assertTrue(binaryFile.length() < tempFile.length() * 2 / 3, "Двоичный снимок должен быть заметно меньше CSV");
+            FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(binaryFile);
+            assertEquals(manager.getAllTasks(), loaded.getAllTasks());
+            assertEquals(manager.getPrioritizedTasks(), loaded.getPrioritizedTasks());
+        } finally {
+            binaryFile.delete();
+        }
+    }
+
+    private File writeBinaryBoard() {
+        FileBackedTaskManager binary = new FileBackedTaskManager(new InMemoryHistoryManager(), tempFile, FileStorageOptions.binary());
+        Epic epic = new Epic("Эпик", "описание");
+        binary.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "", epic.getId());
+        subtask.setStartTime(LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES));
+        subtask.setDuration(Duration.ofMinutes(30));
+        subtask.setStatus(Task.Status.DONE);
+        binary.createSubtask(subtask);
+        Task task = new Task("Задача", "описание");
+        task.setStartTime(subtask.getEndTime());
+        task.setDuration(Duration.ofMinutes(15));
+        binary.createTask(task);
+        return tempFile;
+    }
+
+    @Test
+    void shouldLoadMappedSnapshotLikeStreamedOne() {
+        writeBinaryBoard();
+        FileStorageOptions options = FileStorageOptions.binary();
+        options.setLoadMode(FileStorageOptions.LoadMode.MAPPED);
+
+        FileBackedTaskManager streamed = FileBackedTaskManager.loadFromFile(tempFile);
+        FileBackedTaskManager mapped = FileBackedTaskManager.loadFromFile(tempFile, options);
+
+        assertEquals(streamed.getAllTasks(), mapped.getAllTasks());
+        assertEquals(streamed.getAllSubtasks(), mapped.getAllSubtasks());
+        assertEquals(streamed.getPrioritizedTasks(), mapped.getPrioritizedTasks());
+        assertEquals(Task.Status.DONE, mapped.getEpic(1).getStatus());
+    }
+
+    @Test
+    void shouldServeLookupsLazilyUntilTouched() {
+        writeBinaryBoard();
+        FileStorageOptions options = FileStorageOptions.binary();
+        options.setLoadMode(FileStorageOptions.LoadMode.LAZY);
+        FileBackedTaskManager lazy = FileBackedTaskManager.loadFromFile(tempFile, options);
+
+        Task task = lazy.getTask(3);
+        Subtask subtask = lazy.getSubtask(2);
+        assertEquals("Задача", task.getName());
+        assertEquals(1, subtask.getEpicId());
+        assertNull(lazy.getTask(2), "Подзадача не должна возвращаться как задача");
+        assertSame(task, lazy.getTask(3), "Прочитанная задача должна запоминаться");
+        assertEquals(List.of(subtask, task), lazy.getHistory());
+
+        // Любая другая операция загружает снимок целиком, сохраняя уже выданные объекты
+        assertEquals(Task.Status.DONE, lazy.getEpic(1).getStatus());
+        assertSame(task, lazy.getAllTasks().get(0));
+        assertEquals(List.of(subtask, task), lazy.getPrioritizedTasks());
+
+        task.setName("Новое имя");
+        lazy.updateTask(task);
+        Task created = new Task("Ещё задача", "");
+        lazy.createTask(created);
+        assertEquals(4, created.getId(), "Новый id должен продолжать снимок");
+        assertEquals("Новое имя", FileBackedTaskManager.loadFromFile(tempFile).getTask(3).getName());
+    }
+
+    @Test
+    void shouldPersistBatchAsOneJournalWrite() throws IOException {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(new InMemoryHistoryManager(), tempFile, FileStorageOptions.journaled());
+        long snapshotSize = tempFile.length();
+
+        Task first = new Task("Первая", "");
+        Task second = new Task("Вторая", "");
+        Task third = new Task("Третья", "");
+        journaled.createTasks(List.of(first, second, third));
+        third.setStatus(Task.Status.DONE);
+        journaled.updateAll(List.of(third));
+        journaled.deleteByIds(List.of(first.getId()));
+        journaled.close();
+
+        assertEquals(snapshotSize, tempFile.length(), "Пачка не должна перезаписывать снимок");
+        assertEquals(5, Files.readAllLines(TaskJournal.pathFor(tempFile)).size(), "По записи журнала на задачу пачки");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile, FileStorageOptions.journaled());
+        assertNull(loaded.getTask(first.getId()), "Удаление пачкой должно восстановиться");
+        assertEquals(Task.Status.DONE, loaded.getTask(third.getId()).getStatus(), "Обновление пачкой должно восстановиться");
+        assertEquals(2, loaded.getAllTasks().size());
+        loaded.close();
+    }
+
+    @Test
+    void shouldSaveSnapshotOnceForBatch() {
+        manager.createTasks(List.of(new Task("Первая", ""), new Task("Вторая", "")));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(2, loaded.getAllTasks().size(), "Созданная пачкой задача не сохранилась");
+    }
+
+    @Test
+    void shouldPersistWriteBehindChangesByBarrier() {
+        FileBackedTaskManager writeBehind = Managers.getFileBacked(tempFile, FileStorageOptions.writeBehind());
+        Epic epic = new Epic("Эпик", "");
+        writeBehind.createEpic(epic);
+        for (int i = 0; i < 50; i++) {
+            writeBehind.createSubtask(new Subtask("Подзадача " + i, "", epic.getId()));
+        }
+        writeBehind.deleteSubtask(epic.getId() + 1);
+        writeBehind.persisted().join();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(49, loaded.getSubtasksByEpic(epic.getId()).size(), "После барьера на диске все изменения до него");
+
+        writeBehind.createTask(new Task("Перед закрытием", ""));
+        writeBehind.close();
+        assertEquals(1, FileBackedTaskManager.loadFromFile(tempFile).getAllTasks().size(), "close() должен дописывать отложенные изменения");
+    }
+
+    @Test
+    void shouldFoldJournalIntoWriteBehindSnapshot() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(new InMemoryHistoryManager(), tempFile, FileStorageOptions.journaled());
+        journaled.createTask(new Task("Задача", ""));
+        journaled.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile, FileStorageOptions.writeBehind());
+        loaded.createTask(new Task("Ещё задача", ""));
+        loaded.flush();
+
+        assertFalse(Files.exists(TaskJournal.pathFor(tempFile)), "Отложенный снимок тоже поглощает журнал");
+        assertEquals(2, FileBackedTaskManager.loadFromFile(tempFile).getAllTasks().size());
+        loaded.close();
+    }
+
+    @Test
+    void shouldRebuildStatusIndexOnLoad() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(new InMemoryHistoryManager(), tempFile, FileStorageOptions.journaled());
+        Epic epic = new Epic("Эпик", "");
+        journaled.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "", epic.getId());
+        subtask.setStatus(Task.Status.DONE);
+        journaled.createSubtask(subtask);
+        Task task = new Task("Задача", "");
+        journaled.createTask(task);
+        task.setStatus(Task.Status.IN_PROGRESS);
+        journaled.updateTask(task);
+        journaled.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile, FileStorageOptions.journaled());
+        assertEquals(1, loaded.getTasksByStatus(Task.Type.TASK, Task.Status.IN_PROGRESS).size(), "Журнал проигрывается и в индекс");
+        assertEquals(1, loaded.getSubtasksByEpic(epic.getId(), Task.Status.DONE).size());
+        assertEquals(1, loaded.countByStatus(Task.Type.EPIC, Task.Status.DONE), "Статус эпика пересчитан при загрузке");
+        loaded.close();
+    }
+
+    @Test
+    void shouldNotJournalDeleteOfAnotherType() throws IOException {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(new InMemoryHistoryManager(), tempFile, FileStorageOptions.journaled());
+        Task task = new Task("Задача", "");
+        journaled.createTask(task);
+        Epic epic = new Epic("Эпик", "");
+        journaled.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "", epic.getId());
+        journaled.createSubtask(subtask);
+
+        // Id существует, но другого типа - удалять нечего
+        journaled.deleteTask(epic.getId());
+        journaled.deleteSubtask(task.getId());
+        journaled.deleteEpic(subtask.getId());
+        journaled.deleteByIds(List.of(999));
+        journaled.close();
+
+        assertEquals(3, Files.readAllLines(TaskJournal.pathFor(tempFile)).size(), "Пустые удаления не пишутся в журнал");
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile, FileStorageOptions.journaled());
+        assertEquals(1, loaded.getAllTasks().size());
+        assertEquals(1, loaded.getAllEpics().size(), "Удаление задачи по id эпика не должно удалять эпик");
+        assertEquals(List.of(subtask.getId()), loaded.getEpic(epic.getId()).getSubtaskIds());
+        loaded.close();
+    }
+}
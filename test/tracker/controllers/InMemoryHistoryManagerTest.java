@@ -99,4 +99,60 @@ class InMemoryHistoryManagerTest {
         assertEquals(task3, history.get(1), "Вторая задача должна быть task3");
         assertEquals(task1, history.get(2), "Третья задача должна быть task1");
     }
-}
\ No newline at end of file
+
+    @Test
+    void boundedHistoryShouldEvictLeastRecentlyViewed() {
+        InMemoryHistoryManager bounded = new InMemoryHistoryManager(2);
+        bounded.add(task1);
+        bounded.add(task2);
+        bounded.add(task1);
+        bounded.add(task3);
+
+        assertEquals(List.of(task1, task3), bounded.getHistory(), "Вытесняется задача, которую дольше всех не просматривали");
+    }
+
+    @Test
+    void boundedHistoryShouldNotEvictOnRepeatedView() {
+        InMemoryHistoryManager bounded = new InMemoryHistoryManager(2);
+        bounded.add(task1);
+        bounded.add(task2);
+        bounded.add(task2);
+
+        assertEquals(List.of(task1, task2), bounded.getHistory(), "Повторный просмотр не увеличивает историю");
+    }
+
+    @Test
+    void shouldRejectNegativeCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryHistoryManager(-1),
+                "Отрицательная ёмкость истории недопустима");
+    }
+
+    @Test
+    void shouldReportSizeWithoutCopying() {
+        manager.add(task1);
+        manager.add(task2);
+        manager.add(task1);
+        assertEquals(2, manager.size(), "Повторный просмотр не должен увеличивать размер");
+
+        manager.remove(task2.getId());
+        assertEquals(1, manager.size(), "Удалённая задача не должна учитываться");
+    }
+
+    @Test
+    void shouldReuseHistoryViewUntilOrderChanges() {
+        manager.add(task1);
+        manager.add(task2);
+
+        List<Task> view = manager.getHistoryView();
+        manager.add(task2);
+        manager.remove(task3.getId());
+        assertSame(view, manager.getHistoryView(), "Повторный просмотр последней задачи порядок не меняет");
+
+        manager.add(task1);
+        List<Task> moved = manager.getHistoryView();
+        assertNotSame(view, moved);
+        assertEquals(List.of(task2, task1), moved);
+        assertEquals(List.of(task1, task2), view, "Старый снимок не меняется");
+        assertThrows(UnsupportedOperationException.class, () -> moved.remove(0));
+    }
+}
@@ -6,10 +6,14 @@ import tracker.model.Epic;
 import tracker.model.Subtask;
 import tracker.model.Task;
 import tracker.model.Task.Status;
+import tracker.util.IntMap;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -238,4 +242,397 @@ class InMemoryTaskManagerTest {
         assertEquals(task1.getId(), prioritized.get(1).getId(), "Второй должна быть задача с более поздним временем начала");
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldNotConflictWithItselfOnUpdate() {
+        Task task = new Task("Задача", "");
+        task.setStartTime(LocalDateTime.now());
+        task.setDuration(Duration.ofMinutes(60));
+        manager.createTask(task);
+
+        task.setDuration(Duration.ofMinutes(90));
+        assertDoesNotThrow(() -> manager.updateTask(task), "Задача не должна конфликтовать сама с собой");
+        assertFalse(manager.hasTimeConflict(task));
+    }
+
+    @Test
+    void shouldFreeTimeSlotAfterDelete() {
+        LocalDateTime start = LocalDateTime.now();
+        Task task = new Task("Задача", "");
+        task.setStartTime(start);
+        task.setDuration(Duration.ofMinutes(60));
+        manager.createTask(task);
+
+        Task other = new Task("Другая задача", "");
+        other.setStartTime(start.plusMinutes(30));
+        other.setDuration(Duration.ofMinutes(60));
+        assertTrue(manager.hasTimeConflict(other));
+
+        manager.deleteTask(task.getId());
+        assertFalse(manager.hasTimeConflict(other), "После удаления слот должен освободиться");
+    }
+
+    @Test
+    void shouldKeepTasksWithSameStartTimeInPrioritized() {
+        LocalDateTime start = LocalDateTime.now();
+        Task milestone = new Task("Веха", "");
+        milestone.setStartTime(start);
+        milestone.setDuration(Duration.ZERO);
+
+        Task task = new Task("Задача", "");
+        task.setStartTime(start);
+        task.setDuration(Duration.ofMinutes(30));
+
+        manager.createTask(milestone);
+        manager.createTask(task);
+
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertEquals(2, prioritized.size(), "Задачи с одинаковым временем начала не должны схлопываться");
+        assertEquals(milestone, prioritized.get(0));
+        assertEquals(task, prioritized.get(1));
+    }
+
+    @Test
+    void shouldClearPrioritizedOnDeleteAll() {
+        LocalDateTime start = LocalDateTime.now();
+        Task task = new Task("Задача", "");
+        task.setStartTime(start);
+        task.setDuration(Duration.ofMinutes(30));
+        manager.createTask(task);
+
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "", epic.getId());
+        subtask.setStartTime(start.plusHours(1));
+        subtask.setDuration(Duration.ofMinutes(30));
+        manager.createSubtask(subtask);
+
+        manager.deleteAllTasks();
+        manager.deleteAllSubtasks();
+
+        assertTrue(manager.getPrioritizedTasks().isEmpty(), "Список приоритетов должен очищаться");
+    }
+
+    @Test
+    void shouldReorderSubtaskOnUpdate() {
+        LocalDateTime start = LocalDateTime.now();
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+
+        Subtask first = new Subtask("Первая", "", epic.getId());
+        first.setStartTime(start);
+        first.setDuration(Duration.ofMinutes(30));
+        Subtask second = new Subtask("Вторая", "", epic.getId());
+        second.setStartTime(start.plusHours(1));
+        second.setDuration(Duration.ofMinutes(30));
+        manager.createSubtask(first);
+        manager.createSubtask(second);
+
+        first.setStartTime(start.plusHours(2));
+        manager.updateSubtask(first);
+
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertEquals(2, prioritized.size());
+        assertEquals(second, prioritized.get(0), "После переноса подзадача должна сместиться в списке приоритетов");
+        assertEquals(first, prioritized.get(1));
+    }
+
+    @Test
+    void shouldMoveSubtaskBetweenEpics() {
+        Epic source = new Epic("Откуда", "");
+        Epic target = new Epic("Куда", "");
+        manager.createEpic(source);
+        manager.createEpic(target);
+        Subtask subtask = new Subtask("Подзадача", "", source.getId());
+        subtask.setStatus(Status.DONE);
+        manager.createSubtask(subtask);
+
+        Subtask moved = new Subtask("Подзадача", "", target.getId());
+        moved.setId(subtask.getId());
+        moved.setStatus(Status.DONE);
+        manager.updateSubtask(moved);
+
+        assertTrue(manager.getEpic(source.getId()).getSubtaskIds().isEmpty(), "Подзадача должна уйти из прежнего эпика");
+        assertEquals(Status.NEW, manager.getEpic(source.getId()).getStatus(), "Опустевший эпик должен стать новым");
+        assertEquals(List.of(subtask.getId()), manager.getSubtasksByEpic(target.getId()).stream().map(Task::getId).toList(),
+                "Подзадача должна появиться в новом эпике");
+        assertEquals(Status.DONE, manager.getEpic(target.getId()).getStatus(), "Статус нового эпика не пересчитан");
+    }
+
+    @Test
+    void shouldReuseViewsUntilStorageChanges() {
+        Task task = new Task("Задача", "");
+        task.setStartTime(LocalDateTime.of(2024, 1, 1, 10, 0));
+        task.setDuration(Duration.ofMinutes(30));
+        manager.createTask(task);
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+
+        List<Task> tasks = manager.getTasksView();
+        List<Task> prioritized = manager.getPrioritizedView();
+        manager.getEpic(epic.getId());
+        List<Epic> epics = manager.getEpicsView();
+
+        assertSame(tasks, manager.getTasksView(), "Без изменений должен отдаваться тот же снимок");
+        assertSame(prioritized, manager.getPrioritizedView());
+        assertSame(epics, manager.getEpicsView(), "Просмотр не меняет состав хранилища");
+        assertThrows(UnsupportedOperationException.class, () -> tasks.add(new Task("Чужая", "")));
+
+        manager.createSubtask(new Subtask("Подзадача", "", epic.getId()));
+        assertSame(tasks, manager.getTasksView(), "Изменение подзадач не трогает снимок задач");
+        assertEquals(1, manager.getSubtasksView().size());
+
+        Task replacement = new Task("Замена", "");
+        replacement.setId(task.getId());
+        manager.updateTask(replacement);
+        assertNotSame(tasks, manager.getTasksView(), "Замена задачи меняет снимок");
+        assertSame(replacement, manager.getTasksView().get(0));
+        assertTrue(manager.getPrioritizedView().isEmpty(), "Задача без времени уходит из списка приоритетов");
+        assertEquals(1, tasks.size(), "Старый снимок не меняется");
+    }
+
+    @Test
+    void shouldRebuildViewsOfUnversionedMaps() {
+        InMemoryTaskManager hashMapManager = new InMemoryTaskManager(new InMemoryHistoryManager(),
+                new BoxedMap<>(), new BoxedMap<>(), new BoxedMap<>());
+        hashMapManager.createTask(new Task("Задача", ""));
+
+        List<Task> first = hashMapManager.getTasksView();
+        hashMapManager.createTask(new Task("Ещё задача", ""));
+        assertEquals(1, first.size());
+        assertEquals(2, hashMapManager.getTasksView().size(), "Без версии снимок собирается заново");
+    }
+
+    @Test
+    void shouldPageByIdWithFilters() {
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+        for (int i = 0; i < 5; i++) {
+            Task task = new Task("Задача " + i, "");
+            task.setStatus(i % 2 == 0 ? Status.DONE : Status.NEW);
+            manager.createTask(task);
+            manager.createSubtask(new Subtask("Подзадача " + i, "", epic.getId()));
+        }
+
+        TaskPage first = manager.page(TaskQuery.all(), null, 4);
+        assertEquals(4, first.getItems().size());
+        assertEquals(epic, first.getItems().get(0), "Порядок по возрастанию id, все типы");
+        assertTrue(first.hasNext());
+
+        // Удаление уже выданной задачи не сдвигает следующую страницу
+        manager.deleteTask(first.getItems().get(1).getId());
+        TaskPage second = manager.page(TaskQuery.all(), first.getNextCursor(), 4);
+        assertEquals(first.getItems().get(3).getId() + 1, second.getItems().get(0).getId());
+
+        TaskQuery done = TaskQuery.ofType(Task.Type.TASK);
+        done.setStatus(Status.DONE);
+        List<Task> doneTasks = manager.query(done).collect(Collectors.toList());
+        assertEquals(2, doneTasks.size(), "Первая выполненная задача удалена, остались две");
+        doneTasks.forEach(task -> assertEquals(Status.DONE, task.getStatus()));
+
+        TaskPage subtasks = manager.page(TaskQuery.ofEpic(epic.getId()), null, 10);
+        assertEquals(5, subtasks.getItems().size());
+        assertFalse(subtasks.hasNext(), "Последняя страница без курсора");
+        assertEquals(List.of(), manager.page(TaskQuery.ofEpic(999), null, 10).getItems());
+    }
+
+    @Test
+    void shouldPageTimeWindowInStartOrder() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        // Создаём в обратном порядке, чтобы порядок по времени отличался от порядка по id
+        for (int i = 9; i >= 0; i--) {
+            Task task = new Task("Задача " + i, "");
+            task.setStartTime(start.plusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            manager.createTask(task);
+        }
+        manager.createTask(new Task("Без времени", ""));
+
+        TaskQuery window = TaskQuery.between(start.plusHours(2).plusMinutes(15), start.plusHours(7));
+        TaskPage first = manager.page(window, null, 3);
+        TaskPage second = manager.page(window, first.getNextCursor(), 3);
+
+        assertEquals(List.of(start.plusHours(2), start.plusHours(3), start.plusHours(4)),
+                first.getItems().stream().map(Task::getStartTime).collect(Collectors.toList()),
+                "Задача, начавшаяся до окна и заходящая в него, тоже попадает");
+        assertEquals(2, second.getItems().size());
+        assertEquals(start.plusHours(6), second.getItems().get(1).getStartTime());
+        assertFalse(second.hasNext());
+
+        assertThrows(IllegalArgumentException.class, () -> manager.page(TaskQuery.all(), first.getNextCursor(), 3),
+                "Курсор по времени не подходит к порядку по id");
+        assertThrows(IllegalArgumentException.class, () -> manager.page(window, null, 0));
+    }
+
+    @Test
+    void shouldKeepStatusIndexInSyncWithMaps() {
+        Random random = new Random(7);
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+        Epic other = new Epic("Другой эпик", "");
+        manager.createEpic(other);
+
+        for (int step = 0; step < 2_000; step++) {
+            Status status = Status.values()[random.nextInt(3)];
+            int epicId = random.nextBoolean() ? epic.getId() : other.getId();
+            switch (random.nextInt(6)) {
+                case 0: {
+                    Task task = new Task("Задача", "");
+                    task.setStatus(status);
+                    manager.createTask(task);
+                    break;
+                }
+                case 1: {
+                    Subtask subtask = new Subtask("Подзадача", "", epicId);
+                    subtask.setStatus(status);
+                    manager.createSubtask(subtask);
+                    break;
+                }
+                case 2:
+                    manager.getAllSubtasks().stream().findAny().ifPresent(subtask -> {
+                        Subtask updated = new Subtask(subtask.getName(), "", epicId);
+                        updated.setId(subtask.getId());
+                        updated.setStatus(status);
+                        manager.updateSubtask(updated);
+                    });
+                    break;
+                case 3:
+                    manager.getAllTasks().stream().findAny().ifPresent(task -> {
+                        task.setStatus(status);
+                        manager.updateTask(task);
+                    });
+                    break;
+                case 4:
+                    manager.getAllSubtasks().stream().findAny().ifPresent(subtask -> manager.deleteSubtask(subtask.getId()));
+                    break;
+                default:
+                    manager.getAllTasks().stream().findAny().ifPresent(task -> manager.deleteByIds(List.of(task.getId())));
+            }
+        }
+
+        for (Status status : Status.values()) {
+            assertEquals(manager.getAllTasks().stream().filter(task -> task.getStatus() == status).count(),
+                    manager.getTasksByStatus(Task.Type.TASK, status).size(), "Задачи в статусе " + status);
+            assertEquals(manager.getAllEpics().stream().filter(each -> each.getStatus() == status).count(),
+                    manager.countByStatus(Task.Type.EPIC, status), "Эпики в статусе " + status);
+            assertEquals(manager.getSubtasksByEpic(epic.getId()).stream().filter(subtask -> subtask.getStatus() == status).count(),
+                    manager.getSubtasksByEpic(epic.getId(), status).size(), "Подзадачи эпика в статусе " + status);
+        }
+
+        TaskQuery done = TaskQuery.all();
+        done.setStatus(Status.DONE);
+        assertEquals(manager.query(TaskQuery.all()).filter(task -> task.getStatus() == Status.DONE).collect(Collectors.toList()),
+                manager.query(done).collect(Collectors.toList()), "Выборка через индекс идёт в порядке id");
+
+        manager.deleteAllSubtasks();
+        assertEquals(List.of(), manager.getSubtasksByEpic(epic.getId(), Status.NEW));
+        assertEquals(2, manager.countByStatus(Task.Type.EPIC, Status.NEW), "Эпики без подзадач снова новые");
+    }
+
+    @Test
+    void shouldQueryScheduleByTime() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+        Subtask meeting = new Subtask("Встреча", "", epic.getId());
+        meeting.setStartTime(start);
+        meeting.setDuration(Duration.ofMinutes(45));
+        manager.createSubtask(meeting);
+        Task review = new Task("Ревью", "");
+        review.setStartTime(start.plusHours(1));
+        review.setDuration(Duration.ofMinutes(30));
+        manager.createTask(review);
+        manager.createTask(new Task("Без времени", ""));
+
+        assertEquals(List.of(meeting, review), manager.getTasksStartingBetween(start, start.plusHours(2)));
+        assertEquals(List.of(review), manager.getTasksActiveAt(start.plusHours(1).plusMinutes(10)));
+        assertEquals(List.of(review), manager.getNextTasks(start.plusMinutes(1), 10), "Эпики и задачи без времени в расписание не входят");
+
+        review.setStartTime(start.plusDays(1));
+        manager.updateTask(review);
+        assertEquals(List.of(), manager.getTasksActiveAt(start.plusHours(1).plusMinutes(10)), "Перенос задачи виден в запросах");
+        assertThrows(IllegalArgumentException.class, () -> manager.getNextTasks(start, -1));
+    }
+
+    @Test
+    void shouldScheduleTasksIntoFreeSlots() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        Task busy = new Task("Занято", "");
+        busy.setStartTime(start.plusMinutes(30));
+        busy.setDuration(Duration.ofMinutes(60));
+        manager.createTask(busy);
+
+        assertEquals(start, manager.findFreeSlot(start, Duration.ofMinutes(30)));
+        assertEquals(start.plusMinutes(90), manager.findFreeSlot(start, Duration.ofMinutes(31)));
+
+        Task call = new Task("Звонок", "");
+        call.setDuration(Duration.ofMinutes(20));
+        assertEquals(start, manager.scheduleTask(call, start));
+        assertEquals(call, manager.getTask(call.getId()), "Запланированная задача создаётся");
+
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+        Subtask first = new Subtask("Первая", "", epic.getId());
+        first.setDuration(Duration.ofMinutes(30));
+        Subtask second = new Subtask("Вторая", "", epic.getId());
+        second.setDuration(Duration.ofMinutes(15));
+        Task note = new Task("Заметка", "");
+        manager.autoSchedule(List.of(first, second, note), start);
+
+        assertEquals(start.plusMinutes(90), first.getStartTime(), "Первая подходящая дыра - после занятого");
+        assertEquals(start.plusMinutes(120), second.getStartTime(), "Задачи встают друг за другом в порядке списка");
+        assertEquals(start.plusMinutes(135), note.getStartTime(), "Без длительности задача встаёт сразу после предыдущей");
+        assertEquals(start.plusMinutes(90), manager.getEpic(epic.getId()).getStartTime());
+
+        busy.setDuration(Duration.ofMinutes(10));
+        manager.autoSchedule(List.of(busy), start);
+        assertEquals(start.plusMinutes(20), busy.getStartTime(), "Сохранённая задача переносится, её старый интервал не мешает");
+        assertEquals(5, manager.getPrioritizedTasks().size(), "Эпики в расписание не входят");
+
+        Subtask orphan = new Subtask("Сирота", "", 999);
+        assertThrows(IllegalArgumentException.class, () -> manager.autoSchedule(List.of(call, orphan), start));
+        assertThrows(IllegalArgumentException.class, () -> manager.scheduleTask(epic, start));
+        assertEquals(start, call.getStartTime(), "При ошибке проверки ничего не меняется");
+    }
+
+    @Test
+    void shouldPageOneTypeFromCursor() {
+        for (int i = 0; i < 6; i++) {
+            manager.createTask(new Task("Задача " + i, ""));
+            manager.createEpic(new Epic("Эпик " + i, ""));
+        }
+        List<Epic> epics = manager.getAllEpics();
+        manager.deleteEpic(epics.get(2).getId());
+
+        TaskPage first = manager.page(TaskQuery.ofType(Task.Type.EPIC), null, 2);
+        TaskPage second = manager.page(TaskQuery.ofType(Task.Type.EPIC), first.getNextCursor(), 2);
+        TaskPage third = manager.page(TaskQuery.ofType(Task.Type.EPIC), second.getNextCursor(), 2);
+
+        assertEquals(List.of(epics.get(0), epics.get(1)), first.getItems());
+        assertEquals(List.of(epics.get(3), epics.get(4)), second.getItems(), "Удалённый эпик пропускается");
+        assertEquals(List.of(epics.get(5)), third.getItems());
+        assertFalse(third.hasNext());
+    }
+
+    // Обычный HashMap без номера версии
+    private static class BoxedMap<V> extends HashMap<Integer, V> implements IntMap<V> {
+        @Override
+        public V get(int key) {
+            return get((Object) key);
+        }
+
+        @Override
+        public boolean containsKey(int key) {
+            return containsKey((Object) key);
+        }
+
+        @Override
+        public V put(int key, V value) {
+            return put((Integer) key, value);
+        }
+
+        @Override
+        public V remove(int key) {
+            return remove((Object) key);
+        }
+    }
+}
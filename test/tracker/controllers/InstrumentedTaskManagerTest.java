@@ -0,0 +1,95 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.Test;
+import tracker.exceptions.TimeConflictException;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedTaskManagerTest {
+
+    @Test
+    void shouldRecordCallsOfManagerAndHistory() {
+        InstrumentedTaskManager manager = Managers.getInstrumented();
+        Task task = new Task("Задача", "");
+        manager.createTask(task);
+        manager.getTask(task.getId());
+        manager.getTask(task.getId());
+        manager.getTask(999);
+
+        ManagerMetrics metrics = manager.getMetrics();
+        assertEquals(1, metrics.getOperation("createTask").getCount());
+        assertEquals(3, metrics.getOperation("getTask").getCount(), "Учитываются и вызовы без результата");
+        assertEquals(2, metrics.getOperation("history.add").getCount(), "Просмотры должны попасть в метрики истории");
+        assertEquals(0, metrics.getOperation("deleteTask").getCount());
+        assertTrue(metrics.getOperation("getTask").getMax() > 0, "Задержка должна быть записана");
+        assertTrue(metrics.getOperations().containsKey("updateAll"), "Гистограммы заводятся для всех операций сразу");
+    }
+
+    @Test
+    void shouldRecordFailedCalls() {
+        InstrumentedTaskManager manager = Managers.getInstrumented();
+        Task first = new Task("Первая", "");
+        first.setStartTime(LocalDateTime.of(2025, 4, 1, 9, 0));
+        first.setDuration(Duration.ofMinutes(60));
+        manager.createTask(first);
+        Task clashing = new Task("С пересечением", "");
+        clashing.setStartTime(LocalDateTime.of(2025, 4, 1, 9, 30));
+        clashing.setDuration(Duration.ofMinutes(60));
+
+        assertThrows(TimeConflictException.class, () -> manager.createTask(clashing));
+        assertEquals(2, manager.getMetrics().getOperation("createTask").getCount(), "Неудачный вызов тоже меряется");
+    }
+
+    @Test
+    void shouldReportStorageSizes() {
+        InstrumentedTaskManager manager = Managers.getInstrumented();
+        Task task = new Task("Задача", "");
+        task.setStartTime(LocalDateTime.of(2025, 4, 1, 9, 0));
+        manager.createTask(task);
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+        manager.createSubtask(new Subtask("Первая", "", epic.getId()));
+        manager.createSubtask(new Subtask("Вторая", "", epic.getId()));
+        manager.getEpic(epic.getId());
+
+        ManagerMetrics metrics = manager.getMetrics();
+        assertEquals(1, metrics.getTaskCount());
+        assertEquals(1, metrics.getEpicCount());
+        assertEquals(2, metrics.getSubtaskCount());
+        assertEquals(1, metrics.getPrioritizedCount());
+        assertEquals(1, metrics.getHistorySize());
+
+        metrics.reset();
+        assertEquals(0, metrics.getOperation("createSubtask").getCount(), "Сброс должен обнулить гистограммы");
+        assertEquals(2, metrics.getSubtaskCount(), "Сброс не трогает задачи");
+    }
+
+    @Test
+    void shouldExposeMetricsThroughJmx() throws Exception {
+        InstrumentedTaskManager manager = Managers.getInstrumented("test-board");
+        try {
+            manager.createEpic(new Epic("Эпик", ""));
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("tracker:type=ManagerMetrics,name=\"test-board\"");
+            assertEquals(1, server.getAttribute(name, "EpicCount"));
+
+            TabularData operations = (TabularData) server.getAttribute(name, "Operations");
+            CompositeData createEpic = (CompositeData) operations.get(new Object[]{"createEpic"}).get("value");
+            assertEquals(1L, createEpic.get("count"), "Число вызовов должно быть видно в JMX");
+        } finally {
+            manager.getMetrics().unregisterMBean();
+        }
+    }
+}
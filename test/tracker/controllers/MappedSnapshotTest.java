@@ -0,0 +1,96 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSnapshotTest {
+    private File tempFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempFile = File.createTempFile("tasks", ".bin");
+
+        Epic epic = new Epic("Эпик", "описание");
+        epic.setId(1);
+        Subtask subtask = new Subtask("Подзадача", "", 1);
+        subtask.setId(2);
+        Task task = new Task("Задача", "описание");
+        task.setId(5);
+        Task renamed = new Task("Задача после правки", "описание");
+        renamed.setId(5);
+        renamed.setStartTime(LocalDateTime.of(2025, 4, 1, 9, 0));
+
+        TaskBinaryFormat binary = new TaskBinaryFormat();
+        binary.writeHeader();
+        binary.write(epic);
+        binary.write(subtask);
+        binary.write(task);
+        binary.write(renamed);
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = binary.toByteBuffer();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        tempFile.delete();
+    }
+
+    @Test
+    void shouldIndexRecordsWithoutDecodingThem() {
+        try (MappedSnapshot snapshot = MappedSnapshot.open(tempFile.toPath())) {
+            assertEquals(3, snapshot.size(), "Повторный id не должен давать вторую запись");
+            assertEquals(5, snapshot.getMaxId());
+            assertEquals(Task.Type.SUBTASK, snapshot.typeOf(2));
+            assertNull(snapshot.typeOf(3));
+            assertFalse(snapshot.contains(3));
+        }
+    }
+
+    @Test
+    void shouldReadSingleRecordByIdUsingLatestVersion() {
+        try (MappedSnapshot snapshot = MappedSnapshot.open(tempFile.toPath())) {
+            assertEquals("Задача после правки", snapshot.read(5).getName(), "Последняя запись с id заменяет предыдущую");
+            assertEquals(1, ((Subtask) snapshot.read(2)).getEpicId());
+            assertNull(snapshot.read(42));
+        }
+    }
+
+    @Test
+    void shouldDecodeAllRecordsInFileOrder() {
+        List<Integer> ids = new ArrayList<>();
+        try (MappedSnapshot snapshot = MappedSnapshot.open(tempFile.toPath())) {
+            snapshot.forEach(task -> ids.add(task.getId()));
+        }
+
+        assertEquals(List.of(1, 2, 5), ids, "Эпик должен идти раньше своих подзадач");
+    }
+
+    @Test
+    void shouldCountRecordsByTypeUsingLatestVersion() {
+        try (MappedSnapshot snapshot = MappedSnapshot.open(tempFile.toPath())) {
+            assertEquals(1, snapshot.count(Task.Type.TASK), "Повторный id не должен считаться дважды");
+            assertEquals(1, snapshot.count(Task.Type.EPIC));
+            assertEquals(1, snapshot.count(Task.Type.SUBTASK));
+            assertEquals(1, snapshot.getScheduledCount(), "Время начала берётся из последней версии задачи");
+        }
+    }
+}
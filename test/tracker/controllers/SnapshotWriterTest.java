@@ -0,0 +1,104 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.*;
+import tracker.exceptions.ManagerSaveException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotWriterTest {
+
+    @Test
+    void shouldCoalesceChangesMadeDuringWrite() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger writes = new AtomicInteger();
+        SnapshotWriter writer = new SnapshotWriter("test-writer", () -> () -> {
+            writes.incrementAndGet();
+            started.countDown();
+            await(release);
+        }, 1_000);
+
+        writer.changed();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            writer.changed();
+        }
+        CompletableFuture<Void> barrier = writer.barrier();
+        assertFalse(barrier.isDone(), "Изменения ещё не записаны");
+
+        release.countDown();
+        barrier.join();
+        writer.close();
+
+        assertEquals(2, writes.get(), "Изменения, пришедшие во время записи, должны уйти одной записью");
+        assertEquals(0, writer.getPending());
+    }
+
+    @Test
+    void shouldBlockCallersWhenWriterFallsBehind() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        SnapshotWriter writer = new SnapshotWriter("test-writer", () -> () -> await(release), 2);
+        for (int i = 0; i < 3; i++) {
+            writer.changed();
+        }
+
+        CountDownLatch passed = new CountDownLatch(1);
+        Thread caller = new Thread(() -> {
+            writer.awaitCapacity();
+            passed.countDown();
+        });
+        caller.start();
+
+        assertFalse(passed.await(100, TimeUnit.MILLISECONDS), "При отставании писателя вызывающий должен ждать");
+        release.countDown();
+        assertTrue(passed.await(5, TimeUnit.SECONDS), "Когда писатель догнал, ожидание должно закончиться");
+        writer.close();
+    }
+
+    @Test
+    void shouldReportWriteFailureToBarrierAndClose() {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        SnapshotWriter writer = new SnapshotWriter("test-writer", () -> () -> {
+            if (failing.get()) throw new ManagerSaveException("Диск недоступен");
+        }, 1);
+
+        writer.changed();
+        writer.changed();
+        CompletableFuture<Void> barrier = writer.barrier();
+        assertThrows(Exception.class, barrier::join, "Ошибка записи должна дойти до ожидающего");
+        assertThrows(ManagerSaveException.class, writer::awaitCapacity);
+        assertThrows(ManagerSaveException.class, writer::close, "Незаписанные изменения - ошибка закрытия");
+    }
+
+    @Test
+    void shouldRetryAfterFailure() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        SnapshotWriter writer = new SnapshotWriter("test-writer", () -> () -> {
+            if (attempts.incrementAndGet() == 1) throw new ManagerSaveException("Временная ошибка");
+        }, 10);
+
+        writer.changed();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.getPending() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        writer.close();
+
+        assertEquals(2, attempts.get(), "После ошибки запись должна повториться");
+        assertEquals(0, writer.getPending());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatusIndexTest {
+    private StatusIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        index = new StatusIndex();
+    }
+
+    private Subtask subtask(int id, int epicId, Task.Status status) {
+        Subtask subtask = new Subtask("Подзадача " + id, "", epicId);
+        subtask.setId(id);
+        subtask.setStatus(status);
+        return subtask;
+    }
+
+    @Test
+    void shouldMoveTaskBetweenStatusesOnReAdd() {
+        Task task = new Task("Задача", "");
+        task.setId(1);
+        index.add(task);
+
+        task.setStatus(Task.Status.DONE);
+        assertEquals(List.of(task), index.find(Task.Type.TASK, Task.Status.NEW), "Без перекладки индекс помнит прежний статус");
+
+        index.add(task);
+        assertEquals(List.of(), index.find(Task.Type.TASK, Task.Status.NEW));
+        assertEquals(List.of(task), index.find(Task.Type.TASK, Task.Status.DONE));
+        assertEquals(1, index.size(), "Перекладка не дублирует задачу");
+    }
+
+    @Test
+    void shouldKeepSubtasksPerEpic() {
+        Subtask first = subtask(2, 1, Task.Status.DONE);
+        Subtask second = subtask(3, 1, Task.Status.NEW);
+        Subtask other = subtask(4, 5, Task.Status.DONE);
+        index.add(first);
+        index.add(second);
+        index.add(other);
+
+        assertEquals(List.of(first), index.findSubtasks(1, Task.Status.DONE));
+        assertEquals(2, index.count(Task.Type.SUBTASK, Task.Status.DONE));
+
+        // Перенос в другой эпик
+        Subtask moved = subtask(2, 5, Task.Status.DONE);
+        index.add(moved);
+        assertEquals(List.of(), index.findSubtasks(1, Task.Status.DONE));
+        assertEquals(List.of(other, moved), index.findSubtasks(5, Task.Status.DONE));
+
+        index.remove(3);
+        assertEquals(List.of(), index.findSubtasks(1, Task.Status.NEW));
+        assertEquals(List.of(), index.findSubtasks(42, Task.Status.NEW), "Неизвестный эпик - пустой список");
+    }
+
+    @Test
+    void shouldClearOnlyRequestedType() {
+        Epic epic = new Epic("Эпик", "");
+        epic.setId(1);
+        index.add(epic);
+        index.add(subtask(2, 1, Task.Status.NEW));
+
+        index.clear(Task.Type.SUBTASK);
+
+        assertEquals(List.of(epic), index.find(Task.Type.EPIC, Task.Status.NEW));
+        assertEquals(0, index.count(Task.Type.SUBTASK, Task.Status.NEW));
+        assertEquals(List.of(), index.findSubtasks(1, Task.Status.NEW));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void shouldStayConsistentUnderConcurrentWriters() throws InterruptedException {
+        int threads = 4;
+        int perThread = 500;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    Subtask subtask = subtask(offset + i + 100, i % 10, Task.Status.NEW);
+                    index.add(subtask);
+                    subtask.setStatus(Task.Status.DONE);
+                    index.add(subtask);
+                    if (i % 3 == 0) index.remove(subtask.getId());
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        int kept = threads * (perThread - (perThread + 2) / 3);
+        assertEquals(kept, index.size());
+        assertEquals(0, index.count(Task.Type.SUBTASK, Task.Status.NEW), "Каждая подзадача переложена в DONE");
+        assertEquals(kept, index.count(Task.Type.SUBTASK, Task.Status.DONE));
+        assertEquals(kept, index.find(Task.Type.SUBTASK, Task.Status.DONE).size());
+        int perEpic = 0;
+        for (int epicId = 0; epicId < 10; epicId++) {
+            perEpic += index.findSubtasks(epicId, Task.Status.DONE).size();
+        }
+        assertEquals(kept, perEpic, "Корзины эпиков должны совпадать с корзинами типа");
+    }
+}
@@ -0,0 +1,147 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tracker.exceptions.ManagerSaveException;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskBinaryFormatTest {
+    private File tempFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempFile = File.createTempFile("tasks", ".bin");
+    }
+
+    @AfterEach
+    void tearDown() {
+        tempFile.delete();
+    }
+
+    private void writeFile(TaskBinaryFormat binary) throws IOException {
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = binary.toByteBuffer();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private List<Task> readFile() {
+        List<Task> tasks = new ArrayList<>();
+        TaskBinaryFormat.read(tempFile.toPath(), tasks::add);
+        return tasks;
+    }
+
+    @Test
+    void shouldRoundTripAllFields() throws IOException {
+        Task task = new Task("Имя, с запятой", "Описание\nв две строки");
+        task.setId(300);
+        task.setStatus(Task.Status.DONE);
+        task.setStartTime(LocalDateTime.of(1965, 3, 14, 9, 26, 53, 589_000_000));
+        task.setDuration(Duration.ofMinutes(90));
+
+        Subtask subtask = new Subtask("Подзадача", "", 7);
+        subtask.setId(8);
+        subtask.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+
+        Epic epic = new Epic("Эпик", null);
+        epic.setId(7);
+
+        TaskBinaryFormat binary = new TaskBinaryFormat();
+        binary.writeHeader();
+        binary.write(task);
+        binary.write(epic);
+        binary.write(subtask);
+        writeFile(binary);
+
+        assertTrue(TaskBinaryFormat.isBinary(tempFile.toPath()));
+        List<Task> tasks = readFile();
+        assertEquals(3, tasks.size());
+
+        Task loaded = tasks.get(0);
+        assertEquals(300, loaded.getId());
+        assertEquals("Имя, с запятой", loaded.getName(), "Запятые в имени не должны ломать формат");
+        assertEquals("Описание\nв две строки", loaded.getDescription());
+        assertEquals(Task.Status.DONE, loaded.getStatus());
+        assertEquals(task.getStartTime(), loaded.getStartTime(), "Время должно сохраняться с точностью до наносекунд");
+        assertEquals(task.getDuration(), loaded.getDuration());
+
+        assertNull(tasks.get(1).getDescription(), "null должен отличаться от пустой строки");
+        assertEquals(Task.Type.EPIC, tasks.get(1).getType());
+
+        Subtask loadedSubtask = (Subtask) tasks.get(2);
+        assertEquals(7, loadedSubtask.getEpicId());
+        assertEquals("", loadedSubtask.getDescription());
+        assertEquals(subtask.getStartTime(), loadedSubtask.getStartTime());
+        assertNull(loadedSubtask.getDuration());
+    }
+
+    @Test
+    void shouldReadRecordsLongerThanBuffer() throws IOException {
+        String longName = "д".repeat(100_000);
+        Task task = new Task(longName, "описание");
+        task.setId(1);
+
+        TaskBinaryFormat binary = new TaskBinaryFormat();
+        binary.writeHeader();
+        binary.write(task);
+        writeFile(binary);
+
+        assertEquals(longName, readFile().get(0).getName());
+    }
+
+    @Test
+    void shouldSkipCorruptedRecordAndKeepTheRest() throws IOException {
+        TaskBinaryFormat binary = new TaskBinaryFormat();
+        binary.writeHeader();
+        Task first = new Task("Первая", "");
+        first.setId(1);
+        binary.write(first);
+        int corrupted = binary.size();
+        Task second = new Task("Вторая", "");
+        second.setId(2);
+        binary.write(second);
+        Task third = new Task("Третья", "");
+        third.setId(3);
+        binary.write(third);
+
+        // Портим тип второй записи: за байтом длины идёт порядковый номер типа
+        binary.toByteBuffer().put(corrupted + 1, (byte) 42);
+        writeFile(binary);
+
+        List<Task> tasks = readFile();
+        assertEquals(List.of(1, 3), List.of(tasks.get(0).getId(), tasks.get(1).getId()), "Повреждённая запись пропускается целиком");
+    }
+
+    @Test
+    void shouldRejectUnknownVersion() throws IOException {
+        Files.write(tempFile.toPath(), new byte[]{'T', 'K', 'B', 'N', 99});
+
+        assertTrue(TaskBinaryFormat.isBinary(tempFile.toPath()));
+        assertThrows(ManagerSaveException.class, this::readFile);
+    }
+
+    @Test
+    void shouldNotTreatCsvAsBinary() throws IOException {
+        Files.writeString(tempFile.toPath(), TaskCsvFormat.HEADER + "\n");
+
+        assertFalse(TaskBinaryFormat.isBinary(tempFile.toPath()));
+    }
+}
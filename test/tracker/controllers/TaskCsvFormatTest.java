@@ -0,0 +1,82 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.Test;
+import tracker.model.Epic;
+import tracker.model.Subtask;
+import tracker.model.Task;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskCsvFormatTest {
+    private final TaskCsvFormat csv = new TaskCsvFormat();
+
+    @Test
+    void shouldParseFormattedTask() {
+        Task task = new Task("Задача", "Описание");
+        task.setId(42);
+        task.setStatus(Task.Status.IN_PROGRESS);
+        task.setStartTime(LocalDateTime.of(2025, 3, 14, 9, 26));
+        task.setDuration(Duration.ofMinutes(90));
+
+        Task parsed = csv.parse(TaskCsvFormat.format(task));
+
+        assertEquals(42, parsed.getId());
+        assertEquals(Task.Type.TASK, parsed.getType());
+        assertEquals("Задача", parsed.getName());
+        assertEquals("Описание", parsed.getDescription());
+        assertEquals(Task.Status.IN_PROGRESS, parsed.getStatus());
+        assertEquals(task.getStartTime(), parsed.getStartTime());
+        assertEquals(task.getDuration(), parsed.getDuration());
+    }
+
+    @Test
+    void shouldParseSubtaskAndEpic() {
+        Subtask subtask = (Subtask) csv.parse("7,SUBTASK,Подзадача,DONE,,3,2025-01-01T10:00:30,15");
+        assertEquals(3, subtask.getEpicId());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0, 30), subtask.getStartTime());
+        assertEquals(Duration.ofMinutes(15), subtask.getDuration());
+
+        Epic epic = (Epic) csv.parse("3,EPIC,Эпик,NEW,описание,,,");
+        assertEquals("описание", epic.getDescription());
+        assertNull(epic.getStartTime());
+    }
+
+    @Test
+    void shouldParseLinesWithoutTimeFields() {
+        Task task = csv.parse("1,TASK,Старый формат,NEW,описание");
+
+        assertNotNull(task, "Строки без полей времени должны читаться");
+        assertNull(task.getStartTime());
+        assertNull(task.getDuration());
+    }
+
+    @Test
+    void shouldRejectMalformedLines() {
+        assertNull(csv.parse("1,TASK,Мало полей"));
+        assertNull(csv.parse("x,TASK,Имя,NEW,"), "Неверный id");
+        assertNull(csv.parse("1,STORY,Имя,NEW,"), "Неизвестный тип");
+        assertNull(csv.parse("1,TASK,Имя,NEW,,,2025-13-01T10:00,"), "Неверная дата");
+        assertNull(csv.parse("1,SUBTASK,Имя,NEW,"), "Подзадача без эпика");
+    }
+
+    @Test
+    void shouldReadLinesAcrossBufferBoundaries() throws IOException {
+        String content = "первая строка\r\nвторая\n\nочень длинная строка, которая не влезает в буфер\nпоследняя";
+        List<String> lines = new ArrayList<>();
+
+        try (CsvLineReader reader = new CsvLineReader(new StringReader(content), 8)) {
+            while (reader.next()) {
+                lines.add(new String(reader.buffer(), reader.lineStart(), reader.lineEnd() - reader.lineStart()));
+            }
+        }
+
+        assertEquals(List.of("первая строка", "вторая", "", "очень длинная строка, которая не влезает в буфер", "последняя"), lines);
+    }
+}
@@ -0,0 +1,117 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskJournalTest {
+    private File tempFile;
+    private Path journalPath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempFile = File.createTempFile("tasks", ".csv");
+        journalPath = TaskJournal.pathFor(tempFile);
+    }
+
+    @AfterEach
+    void tearDown() {
+        new TaskJournal(journalPath).clear();
+        tempFile.delete();
+    }
+
+    private List<String> replayAll() {
+        List<String> records = new ArrayList<>();
+        new TaskJournal(journalPath).replay(records::add);
+        return records;
+    }
+
+    @Test
+    void shouldWriteEachRecordImmediatelyWithSync() {
+        FileStorageOptions options = FileStorageOptions.journaled();
+        options.setDurability(FileStorageOptions.Durability.SYNC);
+        TaskJournal journal = new TaskJournal(journalPath, options);
+
+        journal.append("D,1");
+        journal.append("D,2");
+
+        assertEquals(List.of("D,1", "D,2"), replayAll(), "Каждая запись должна сразу попадать на диск");
+        journal.close();
+    }
+
+    @Test
+    void shouldShareOneFlushForGroupCommit() {
+        FileStorageOptions options = FileStorageOptions.journaled();
+        options.setDurability(FileStorageOptions.Durability.GROUP_COMMIT);
+        options.setGroupCommitMillis(60_000);
+        options.setGroupCommitRecords(3);
+        TaskJournal journal = new TaskJournal(journalPath, options);
+
+        journal.append("D,1");
+        journal.append("D,2");
+        assertTrue(replayAll().isEmpty(), "Неполная пачка не должна записываться до истечения интервала");
+        assertEquals(2, journal.getRecordCount(), "Записи из пачки учитываются сразу");
+
+        journal.append("D,3");
+        assertEquals(List.of("D,1", "D,2", "D,3"), replayAll(), "Полная пачка сбрасывается одной записью");
+
+        journal.append("D,4");
+        journal.flush();
+        assertEquals(4, replayAll().size(), "flush() сбрасывает неполную пачку");
+        journal.close();
+    }
+
+    @Test
+    void shouldFlushGroupOnTimer() throws InterruptedException {
+        FileStorageOptions options = FileStorageOptions.journaled();
+        options.setDurability(FileStorageOptions.Durability.GROUP_COMMIT);
+        options.setGroupCommitMillis(5);
+        TaskJournal journal = new TaskJournal(journalPath, options);
+
+        journal.append("D,1");
+        for (int i = 0; i < 200 && replayAll().isEmpty(); i++) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(List.of("D,1"), replayAll(), "Пачка должна сброситься по таймеру");
+        journal.close();
+    }
+
+    @Test
+    void shouldReplaySealedSegmentsBeforeActiveFile() {
+        TaskJournal journal = new TaskJournal(journalPath);
+        journal.append("D,1");
+        long segment = journal.rotate();
+        journal.append("D,2");
+
+        assertEquals(List.of("D,1", "D,2"), replayAll());
+
+        journal.deleteSegmentsUpTo(segment);
+        assertEquals(List.of("D,2"), replayAll(), "Удалённый сегмент не должен проигрываться");
+        journal.close();
+    }
+
+    @Test
+    void shouldKeepGroupedRecordsAcrossRotation() throws IOException {
+        FileStorageOptions options = FileStorageOptions.journaled();
+        options.setDurability(FileStorageOptions.Durability.GROUP_COMMIT);
+        options.setGroupCommitMillis(60_000);
+        TaskJournal journal = new TaskJournal(journalPath, options);
+
+        journal.append("D,1");
+        journal.rotate();
+
+        assertFalse(Files.exists(journalPath), "Активный файл запечатан");
+        assertEquals(List.of("D,1"), replayAll(), "Пачка должна попасть в запечатанный сегмент");
+        journal.close();
+    }
+}
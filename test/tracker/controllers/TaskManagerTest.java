@@ -7,6 +7,7 @@ import tracker.model.*;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import tracker.model.Task.Status;
 
@@ -170,4 +171,242 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
         assertEquals(1, manager.getHistory().size(), "История не должна содержать дубликатов");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldKeepSubtasksAndStatusWhenEpicUpdated() {
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "", epic.getId());
+        subtask.setStatus(Status.DONE);
+        manager.createSubtask(subtask);
+
+        Epic renamed = new Epic("Новое имя", "");
+        renamed.setId(epic.getId());
+        manager.updateEpic(renamed);
+
+        Epic saved = manager.getEpic(epic.getId());
+        assertEquals("Новое имя", saved.getName(), "Имя эпика не обновилось");
+        assertEquals(java.util.List.of(subtask.getId()), saved.getSubtaskIds(), "Подзадачи эпика потерялись");
+        assertEquals(Status.DONE, saved.getStatus(), "Статус эпика должен считаться по подзадачам");
+    }
+
+    @Test
+    void shouldRecountEpicWhenSubtaskMovedToAnotherEpic() {
+        Epic source = new Epic("Откуда", "");
+        Epic target = new Epic("Куда", "");
+        manager.createEpic(source);
+        manager.createEpic(target);
+        Subtask subtask = new Subtask("Подзадача", "", source.getId());
+        subtask.setStatus(Status.DONE);
+        manager.createSubtask(subtask);
+
+        Subtask moved = new Subtask("Подзадача", "", target.getId());
+        moved.setId(subtask.getId());
+        moved.setStatus(Status.IN_PROGRESS);
+        manager.updateSubtask(moved);
+
+        assertTrue(manager.getEpic(source.getId()).getSubtaskIds().isEmpty(), "Подзадача должна уйти из прежнего эпика");
+        assertEquals(Status.NEW, manager.getEpic(source.getId()).getStatus(), "Опустевший эпик должен стать новым");
+        assertEquals(java.util.List.of(subtask.getId()), manager.getEpic(target.getId()).getSubtaskIds(),
+                "Подзадача должна появиться в новом эпике");
+        assertEquals(Status.IN_PROGRESS, manager.getEpic(target.getId()).getStatus(), "Статус нового эпика не пересчитан");
+    }
+
+    @Test
+    void shouldRecountEpicWhenSubtaskChangedInPlace() {
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "", epic.getId());
+        manager.createSubtask(subtask);
+
+        subtask.setStatus(Status.DONE);
+        manager.updateSubtask(subtask);
+
+        assertEquals(Status.DONE, manager.getEpic(epic.getId()).getStatus(),
+                "Изменение статуса в том же объекте должно попасть в счётчики");
+    }
+
+    @Test
+    void shouldMoveEpicTimeWithSubtask() {
+        Epic source = new Epic("Откуда", "");
+        Epic target = new Epic("Куда", "");
+        manager.createEpic(source);
+        manager.createEpic(target);
+        Subtask subtask = new Subtask("Подзадача", "", source.getId());
+        subtask.setStartTime(LocalDateTime.of(2025, 4, 1, 9, 0));
+        subtask.setDuration(Duration.ofMinutes(45));
+        manager.createSubtask(subtask);
+
+        Subtask moved = new Subtask("Подзадача", "", target.getId());
+        moved.setId(subtask.getId());
+        moved.setStartTime(LocalDateTime.of(2025, 4, 1, 9, 0));
+        moved.setDuration(Duration.ofMinutes(45));
+        manager.updateSubtask(moved);
+
+        assertNull(manager.getEpic(source.getId()).getStartTime(), "Время должно уйти из прежнего эпика");
+        assertEquals(Duration.ZERO, manager.getEpic(source.getId()).getDuration(), "Длительность прежнего эпика не обнулилась");
+        assertEquals(LocalDateTime.of(2025, 4, 1, 9, 45), manager.getEpic(target.getId()).getEndTime(),
+                "Окончание нового эпика не пересчитано");
+        assertEquals(Duration.ofMinutes(45), manager.getEpic(target.getId()).getDuration(), "Длительность нового эпика не пересчитана");
+    }
+
+    @Test
+    void shouldCreateTasksAndSubtasksInBatch() {
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+        LocalDateTime start = LocalDateTime.of(2025, 5, 1, 9, 0);
+
+        Task timed = new Task("Со временем", "");
+        timed.setStartTime(start);
+        timed.setDuration(Duration.ofMinutes(30));
+        manager.createTasks(java.util.List.of(timed, new Task("Без времени", "")));
+
+        Subtask first = new Subtask("Первая", "", epic.getId());
+        first.setStartTime(start.plusHours(1));
+        first.setDuration(Duration.ofMinutes(30));
+        first.setStatus(Status.DONE);
+        Subtask second = new Subtask("Вторая", "", epic.getId());
+        manager.createSubtasks(java.util.List.of(first, second));
+
+        assertEquals(2, manager.getAllTasks().size(), "Обе задачи пачки должны быть созданы");
+        assertEquals(2, manager.getEpic(epic.getId()).getSubtaskIds().size(), "Обе подзадачи должны попасть в эпик");
+        assertEquals(Status.IN_PROGRESS, manager.getEpic(epic.getId()).getStatus(), "Эпик должен быть пересчитан");
+        assertEquals(start.plusHours(1), manager.getEpic(epic.getId()).getStartTime(), "Время эпика должно быть пересчитано");
+    }
+
+    @Test
+    void shouldRejectWholeBatchWhenTasksOverlap() {
+        LocalDateTime start = LocalDateTime.of(2025, 5, 1, 9, 0);
+        Task existing = new Task("Существующая", "");
+        existing.setStartTime(start);
+        existing.setDuration(Duration.ofMinutes(60));
+        manager.createTask(existing);
+
+        Task free = new Task("Свободная", "");
+        free.setStartTime(start.plusHours(2));
+        free.setDuration(Duration.ofMinutes(60));
+        Task clashing = new Task("С пересечением", "");
+        clashing.setStartTime(start.plusMinutes(30));
+        clashing.setDuration(Duration.ofMinutes(60));
+        assertThrows(TimeConflictException.class, () -> manager.createTasks(java.util.List.of(free, clashing)),
+                "Пересечение с существующей задачей должно отклонить пачку");
+
+        Task neighbour = new Task("Соседняя", "");
+        neighbour.setStartTime(start.plusHours(2).plusMinutes(30));
+        neighbour.setDuration(Duration.ofMinutes(60));
+        assertThrows(TimeConflictException.class, () -> manager.createTasks(java.util.List.of(free, neighbour)),
+                "Пересечение задач пачки между собой должно отклонить пачку");
+
+        assertEquals(1, manager.getAllTasks().size(), "Отклонённая пачка не должна применяться частично");
+        assertDoesNotThrow(() -> manager.createTask(free), "Свободный интервал не должен быть занят отклонённой пачкой");
+    }
+
+    @Test
+    void shouldSwapTimeSlotsInOneBatchUpdate() {
+        LocalDateTime start = LocalDateTime.of(2025, 5, 1, 9, 0);
+        Task morning = new Task("Утро", "");
+        morning.setStartTime(start);
+        morning.setDuration(Duration.ofMinutes(60));
+        Task noon = new Task("Полдень", "");
+        noon.setStartTime(start.plusHours(3));
+        noon.setDuration(Duration.ofMinutes(60));
+        manager.createTasks(java.util.List.of(morning, noon));
+
+        // По одной такие обновления не проходят: каждое пересекается со старым временем другой задачи
+        morning.setStartTime(start.plusHours(3));
+        noon.setStartTime(start);
+        manager.updateAll(java.util.List.of(morning, noon));
+
+        assertEquals(start.plusHours(3), manager.getTask(morning.getId()).getStartTime(), "Задачи должны поменяться местами");
+        assertEquals(start, manager.getTask(noon.getId()).getStartTime(), "Задачи должны поменяться местами");
+
+        Task clashing = new Task("С пересечением", "");
+        clashing.setStartTime(start.plusMinutes(30));
+        clashing.setDuration(Duration.ofMinutes(10));
+        assertThrows(TimeConflictException.class, () -> manager.createTask(clashing), "Индекс должен знать новое время");
+    }
+
+    @Test
+    void shouldUpdateEpicAndItsSubtasksInOneBatch() {
+        Epic epic = new Epic("Эпик", "");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "", epic.getId());
+        manager.createSubtask(subtask);
+
+        Epic renamed = new Epic("Новое имя", "");
+        renamed.setId(epic.getId());
+        subtask.setStatus(Status.DONE);
+        Task unknown = new Task("Неизвестная", "");
+        unknown.setId(999);
+        manager.updateAll(java.util.List.of(subtask, renamed, unknown));
+
+        Epic saved = manager.getEpic(epic.getId());
+        assertEquals("Новое имя", saved.getName(), "Эпик должен обновиться");
+        assertEquals(Status.DONE, saved.getStatus(), "Статус новой версии эпика должен учитывать подзадачу пачки");
+        assertNull(manager.getTask(999), "Неизвестный id не должен создавать задачу");
+    }
+
+    @Test
+    void shouldDeleteMixedIdsInBatch() {
+        Task task = new Task("Задача", "");
+        manager.createTask(task);
+        Epic doomed = new Epic("Удаляемый", "");
+        manager.createEpic(doomed);
+        Subtask orphan = new Subtask("Подзадача удаляемого", "", doomed.getId());
+        manager.createSubtask(orphan);
+        Epic kept = new Epic("Остающийся", "");
+        manager.createEpic(kept);
+        Subtask done = new Subtask("Выполненная", "", kept.getId());
+        done.setStatus(Status.DONE);
+        Subtask fresh = new Subtask("Новая", "", kept.getId());
+        manager.createSubtasks(java.util.List.of(done, fresh));
+
+        manager.deleteByIds(java.util.List.of(task.getId(), doomed.getId(), fresh.getId(), 12345));
+
+        assertTrue(manager.getAllTasks().isEmpty(), "Задача должна быть удалена");
+        assertNull(manager.getEpic(doomed.getId()), "Эпик должен быть удалён");
+        assertNull(manager.getSubtask(orphan.getId()), "Подзадачи удалённого эпика должны быть удалены");
+        assertEquals(java.util.List.of(done.getId()), manager.getEpic(kept.getId()).getSubtaskIds(), "В эпике должна остаться одна подзадача");
+        assertEquals(Status.DONE, manager.getEpic(kept.getId()).getStatus(), "Статус оставшегося эпика должен быть пересчитан");
+    }
+
+    @Test
+    void shouldIgnoreDeleteTaskForSubtaskId() {
+        Epic epic = new Epic("Epic", "");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "", epic.getId());
+        subtask.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        subtask.setDuration(Duration.ofMinutes(30));
+        manager.createSubtask(subtask);
+        manager.getSubtask(subtask.getId());
+
+        manager.deleteTask(subtask.getId());
+
+        assertNotNull(manager.getSubtask(subtask.getId()), "deleteTask не удаляет подзадачи");
+        assertTrue(manager.getHistory().contains(subtask), "Подзадача должна остаться в истории");
+        if (manager instanceof InMemoryTaskManager) {
+            InMemoryTaskManager inMemory = (InMemoryTaskManager) manager;
+            assertEquals(List.of(subtask), inMemory.getTasksByStatus(Task.Type.SUBTASK, Status.NEW),
+                    "Индекс статусов должен совпадать с картами");
+            assertEquals(1, inMemory.countByStatus(Task.Type.SUBTASK, Status.NEW));
+            assertEquals(List.of(subtask), inMemory.getPrioritizedTasks(), "Подзадача должна остаться в расписании");
+        }
+    }
+
+    @Test
+    void shouldUpdateTimedEpicThroughBatch() {
+        Epic epic = new Epic("Epic", "");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "", epic.getId());
+        subtask.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        subtask.setDuration(Duration.ofMinutes(30));
+        manager.createSubtask(subtask);
+
+        Epic stored = manager.getEpic(epic.getId());
+        stored.setDescription("Новое описание");
+        assertDoesNotThrow(() -> manager.updateAll(List.of(stored)), "Время эпика - это время его подзадач, а не пересечение");
+
+        assertEquals("Новое описание", manager.getEpic(epic.getId()).getDescription());
+        assertEquals(subtask.getStartTime(), manager.getEpic(epic.getId()).getStartTime());
+    }
+}
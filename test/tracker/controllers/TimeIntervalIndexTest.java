@@ -0,0 +1,152 @@
+package tracker.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tracker.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeIntervalIndexTest {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    private TimeIntervalIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        index = new TimeIntervalIndex();
+    }
+
+    private Task task(int id, LocalDateTime start, long minutes) {
+        Task task = new Task("Задача " + id, "");
+        task.setId(id);
+        task.setStartTime(start);
+        task.setDuration(Duration.ofMinutes(minutes));
+        return task;
+    }
+
+    @Test
+    void shouldFindOverlappingInterval() {
+        Task existing = task(1, START, 60);
+        index.add(existing);
+
+        assertEquals(existing, index.findOverlap(task(2, START.plusMinutes(30), 60)), "Пересечение по концу");
+        assertEquals(existing, index.findOverlap(task(3, START.minusMinutes(30), 60)), "Пересечение по началу");
+        assertEquals(existing, index.findOverlap(task(4, START.plusMinutes(10), 10)), "Вложенный интервал");
+        assertEquals(existing, index.findOverlap(task(5, START.minusHours(1), 180)), "Охватывающий интервал");
+    }
+
+    @Test
+    void shouldAllowAdjacentIntervals() {
+        index.add(task(1, START, 60));
+        index.add(task(2, START.plusHours(2), 60));
+
+        assertNull(index.findOverlap(task(3, START.plusHours(1), 60)), "Стык интервалов не является пересечением");
+        assertNull(index.findOverlap(task(4, START.minusHours(1), 60)));
+        assertNull(index.findOverlap(task(5, START.plusHours(3), 60)));
+    }
+
+    @Test
+    void shouldIgnoreTaskWithSameId() {
+        Task existing = task(1, START, 60);
+        index.add(existing);
+
+        assertNull(index.findOverlap(task(1, START.plusMinutes(30), 60)), "Задача не конфликтует сама с собой");
+    }
+
+    @Test
+    void shouldRemoveById() {
+        index.add(task(1, START, 60));
+        index.add(task(2, START.plusHours(1), 60));
+
+        assertNotNull(index.remove(1));
+        assertEquals(1, index.size());
+        assertFalse(index.contains(1));
+        assertNull(index.findOverlap(task(3, START, 60)));
+        assertNull(index.remove(1), "Повторное удаление ничего не возвращает");
+    }
+
+    @Test
+    void shouldSkipTasksWithoutStartTime() {
+        Task task = new Task("Без времени", "");
+        task.setId(1);
+        index.add(task);
+
+        assertEquals(0, index.size());
+        assertNull(index.findOverlap(task));
+    }
+
+    @Test
+    void shouldSkipIgnoredIntervalsAndCheckNextOne() {
+        index.add(task(1, START, 60));
+        index.add(task(2, START.plusHours(1), 60));
+
+        Task probe = task(3, START.plusMinutes(90), 60);
+        assertNull(index.findOverlap(probe, id -> id == 2), "Заменяемый интервал не должен мешать");
+        assertEquals(1, index.findOverlap(task(4, START.plusMinutes(30), 120), id -> id == 2).getId(),
+                "За пропущенным интервалом должен проверяться следующий");
+    }
+
+    @Test
+    void shouldWalkOnlyWindowCandidates() {
+        Task first = task(1, START, 60);
+        Task second = task(2, START.plusHours(2), 60);
+        Task third = task(3, START.plusHours(4), 60);
+        index.add(first);
+        index.add(second);
+        index.add(third);
+
+        assertEquals(List.of(first, second), index.window(START.plusMinutes(30), START.plusHours(3)).collect(Collectors.toList()),
+                "Интервал, начавшийся до окна, остаётся кандидатом");
+        assertEquals(List.of(first, second, third), index.window(START.plusHours(2), null).collect(Collectors.toList()),
+                "Берётся один интервал до окна, точную проверку делает вызывающий");
+        assertEquals(List.of(), index.window(START.plusHours(5), START.plusHours(1)).collect(Collectors.toList()),
+                "Пустое окно не должно падать");
+        assertEquals(List.of(third), index.windowAfter(second.getStartTime(), second.getEndTime(), 2, null).collect(Collectors.toList()));
+    }
+
+    @Test
+    void shouldAnswerCalendarRangeQueries() {
+        Task first = task(1, START, 60);
+        Task second = task(2, START.plusHours(2), 60);
+        Task instant = task(3, START.plusHours(3), 0);
+        Task third = task(4, START.plusHours(4), 60);
+        index.add(first);
+        index.add(second);
+        index.add(instant);
+        index.add(third);
+
+        assertEquals(List.of(second, instant), index.startingBetween(START.plusMinutes(30), START.plusHours(4)),
+                "Правая граница не включается, а задача, начавшаяся до левой, не попадает");
+        assertEquals(List.of(), index.startingBetween(START.plusHours(5), START));
+
+        assertEquals(List.of(first), index.activeAt(START), "Начало интервала входит в него");
+        assertEquals(List.of(), index.activeAt(START.plusHours(1)), "Конец интервала в него не входит");
+        assertEquals(List.of(second), index.activeAt(START.plusHours(2).plusMinutes(59)));
+        assertEquals(List.of(), index.activeAt(START.plusHours(3)), "Задача нулевой длины ни в какой момент не идёт");
+
+        assertEquals(List.of(instant, third), index.nextAfter(START.plusHours(2).plusMinutes(1), 5));
+        assertEquals(List.of(first, second), index.nextAfter(START.minusDays(1), 2));
+        assertEquals(List.of(), index.nextAfter(START, 0));
+    }
+
+    @Test
+    void shouldFindFirstFreeGap() {
+        index.add(task(1, START, 60));
+        index.add(task(2, START.plusMinutes(90), 30));
+        index.add(task(3, START.plusHours(2), 60));
+
+        assertEquals(START.plusMinutes(60), index.findFreeSlot(START, Duration.ofMinutes(30), id -> false));
+        assertEquals(START.plusHours(3), index.findFreeSlot(START, Duration.ofMinutes(31), id -> false),
+                "Промежуток короче длительности пропускается");
+        assertEquals(START.plusMinutes(30), index.findFreeSlot(START.plusMinutes(30), Duration.ofMinutes(60), id -> id == 1),
+                "Интервалы переносимых задач не мешают");
+        assertEquals(START.minusHours(1), index.findFreeSlot(START.minusHours(1), Duration.ofMinutes(60), id -> false));
+        assertEquals(START.plusMinutes(60), index.findFreeSlot(START.plusMinutes(10), Duration.ZERO, id -> false),
+                "Нулевая длительность не может стоять внутри чужого интервала");
+    }
+}
@@ -2,6 +2,8 @@ package tracker.model;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,4 +41,111 @@ class EpicTest {
         );
     }
 
+    @Test
+    void shouldDeriveStatusFromCounters() {
+        Epic epic = new Epic("Эпик", "");
+        assertEquals(Task.Status.NEW, epic.getSubtaskStatus(), "Пустой эпик должен быть новым");
+
+        Subtask first = new Subtask("Первая", "", 1);
+        first.setId(2);
+        Subtask second = new Subtask("Вторая", "", 1);
+        second.setId(3);
+        epic.applySubtask(first);
+        epic.applySubtask(second);
+        assertEquals(Task.Status.NEW, epic.getSubtaskStatus(), "Все подзадачи новые");
+
+        first.setStatus(Task.Status.DONE);
+        epic.applySubtask(first);
+        assertEquals(Task.Status.IN_PROGRESS, epic.getSubtaskStatus(), "Новая и выполненная дают IN_PROGRESS");
+        assertEquals(List.of(2, 3), epic.getSubtaskIds(), "Пересчёт не должен дублировать подзадачу");
+
+        second.setStatus(Task.Status.DONE);
+        epic.applySubtask(second);
+        assertEquals(Task.Status.DONE, epic.getSubtaskStatus(), "Все подзадачи выполнены");
+
+        epic.dropSubtask(2);
+        epic.dropSubtask(2);
+        assertEquals(Task.Status.DONE, epic.getSubtaskStatus(), "Повторное удаление не должно сбивать счётчики");
+        epic.dropSubtask(3);
+        assertEquals(Task.Status.NEW, epic.getSubtaskStatus(), "Эпик без подзадач снова новый");
+    }
+
+    @Test
+    void shouldTakeSubtasksWithStatusesFromPreviousVersion() {
+        Epic previous = new Epic("Эпик", "");
+        Subtask subtask = new Subtask("Подзадача", "", 1);
+        subtask.setId(2);
+        subtask.setStatus(Task.Status.IN_PROGRESS);
+        previous.applySubtask(subtask);
+
+        Epic updated = new Epic("Новое имя", "");
+        updated.addSubtaskId(99);
+        updated.takeSubtasksFrom(previous);
+
+        assertEquals(List.of(2), updated.getSubtaskIds(), "Подзадачи должны перейти в новую версию");
+        assertEquals(Task.Status.IN_PROGRESS, updated.getSubtaskStatus(), "Статус подзадачи должен сохраниться");
+    }
+
+    @Test
+    void shouldMaintainTimeFieldsIncrementally() {
+        Epic epic = new Epic("Эпик", "");
+        LocalDateTime nine = LocalDateTime.of(2025, 4, 1, 9, 0);
+
+        Subtask first = new Subtask("Первая", "", 1);
+        first.setId(2);
+        first.setStartTime(nine);
+        first.setDuration(Duration.ofMinutes(30));
+        Subtask second = new Subtask("Вторая", "", 1);
+        second.setId(3);
+        second.setStartTime(nine);
+        second.setDuration(Duration.ofMinutes(90));
+        Subtask untimed = new Subtask("Без времени", "", 1);
+        untimed.setId(4);
+
+        epic.applySubtask(first);
+        epic.applySubtask(second);
+        epic.applySubtask(untimed);
+        epic.refreshTimeFields();
+        assertEquals(nine, epic.getStartTime(), "Неверное начало эпика");
+        assertEquals(nine.plusMinutes(90), epic.getEndTime(), "Неверное окончание эпика");
+        assertEquals(Duration.ofMinutes(120), epic.getDuration(), "Длительность - сумма подзадач со временем");
+
+        // Подзадачу изменили прямо в объекте - снимается прежний вклад, а не текущие поля
+        second.setStartTime(nine.plusHours(3));
+        epic.applySubtask(second);
+        epic.refreshTimeFields();
+        assertEquals(nine, epic.getStartTime(), "Совпадавшее начало другой подзадачи должно остаться");
+        assertEquals(nine.plusHours(3).plusMinutes(90), epic.getEndTime(), "Окончание должно сдвинуться");
+        assertEquals(Duration.ofMinutes(120), epic.getDuration(), "Длительность не должна задвоиться");
+
+        epic.dropSubtask(2);
+        epic.refreshTimeFields();
+        assertEquals(nine.plusHours(3), epic.getStartTime(), "Начало должно перейти к оставшейся подзадаче");
+        assertEquals(Duration.ofMinutes(90), epic.getDuration(), "Длительность удалённой подзадачи должна уйти");
+
+        epic.dropSubtask(3);
+        epic.refreshTimeFields();
+        assertNull(epic.getStartTime(), "У эпика без подзадач со временем нет начала");
+        assertNull(epic.getEndTime(), "У эпика без подзадач со временем нет окончания");
+        assertEquals(Duration.ZERO, epic.getDuration(), "Длительность должна обнулиться");
+    }
+
+    @Test
+    void shouldKeepSubtaskMembershipInInsertionOrder() {
+        Epic epic = new Epic("Эпик", "");
+        for (int id = 10; id > 0; id--) {
+            epic.addSubtaskId(id);
+        }
+        epic.dropSubtask(5);
+        epic.addSubtaskId(7);
+
+        assertEquals(9, epic.getSubtaskCount(), "Повторное добавление не должно менять число подзадач");
+        assertTrue(epic.containsSubtask(7), "Подзадача 7 должна быть в эпике");
+        assertFalse(epic.containsSubtask(5), "Подзадача 5 удалена");
+
+        List<Integer> visited = new java.util.ArrayList<>();
+        epic.forEachSubtaskId(visited::add);
+        assertEquals(List.of(10, 9, 8, 7, 6, 4, 3, 2, 1), visited, "Обход должен идти в порядке добавления");
+        assertEquals(visited, epic.getSubtaskIds(), "Копия должна совпадать с обходом");
+    }
 }
@@ -0,0 +1,155 @@
+package tracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashMapTest {
+
+    @Test
+    void shouldBehaveLikeHashMapUnderRandomOperations() {
+        IntHashMap<String> map = new IntHashMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+
+        assertEquals(expected, map, "Содержимое должно совпадать с HashMap");
+        assertEquals(expected.size(), map.size());
+        for (int key = -1_000; key < 1_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+    }
+
+    @Test
+    void shouldIterateInInsertionOrder() {
+        IntHashMap<String> map = new IntHashMap<>();
+        map.put(30, "a");
+        map.put(10, "b");
+        map.put(20, "c");
+        map.remove(10);
+        map.put(10, "d");
+        map.put(30, "e");
+
+        assertEquals(List.of(30, 20, 10), new ArrayList<>(map.keySet()), "Замена значения не меняет позицию");
+        assertEquals(List.of("e", "c", "d"), new ArrayList<>(map.values()));
+    }
+
+    @Test
+    void shouldRemoveThroughIterator() {
+        IntHashMap<String> map = new IntHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, "v" + i);
+        }
+
+        Iterator<Integer> keys = map.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next() % 2 == 0) keys.remove();
+        }
+        map.values().removeIf(value -> value.endsWith("1"));
+
+        assertEquals(40, map.size());
+        assertNull(map.get(10));
+        assertNull(map.get(21));
+        assertEquals("v23", map.get(23));
+    }
+
+    @Test
+    void shouldReuseSpaceOfRemovedEntries() {
+        IntHashMap<String> map = new IntHashMap<>(4);
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i, "v");
+            map.remove(i);
+        }
+        map.put(1, "один");
+
+        assertEquals(1, map.size());
+        assertEquals("один", map.get(1));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    void shouldRejectNullValues() {
+        assertThrows(NullPointerException.class, () -> new IntHashMap<String>().put(1, null));
+    }
+
+    @Test
+    void shouldVisitKeysInInsertionOrderSkippingRemoved() {
+        IntHashMap<String> map = new IntHashMap<>();
+        map.put(5, "a");
+        map.put(1, "b");
+        map.put(9, "c");
+        map.remove(1);
+        map.put(1, "d");
+
+        List<Integer> keys = new ArrayList<>();
+        map.forEachKey(keys::add);
+        assertEquals(List.of(5, 9, 1), keys, "Повторно добавленный ключ должен оказаться в конце");
+    }
+
+    @Test
+    void shouldCountEveryContentChangeInVersion() {
+        IntHashMap<String> map = new IntHashMap<>();
+        long initial = map.getVersion();
+
+        map.put(1, "a");
+        long added = map.getVersion();
+        map.put(1, "b");
+        long replaced = map.getVersion();
+        map.get(1);
+        map.remove(2);
+
+        assertTrue(added > initial);
+        assertTrue(replaced > added, "Замена значения тоже меняет содержимое");
+        assertEquals(replaced, map.getVersion(), "Чтение и удаление отсутствующего ключа версию не меняют");
+
+        map.clear();
+        assertTrue(map.getVersion() > replaced);
+    }
+
+    @Test
+    void shouldWalkKeysAfterGivenOneWhenInsertedInOrder() {
+        IntHashMap<String> map = new IntHashMap<>();
+        for (int key = 1; key <= 10; key++) {
+            map.put(key * 10, "v" + key);
+        }
+        map.remove(40);
+        map.remove(50);
+
+        List<String> after = new ArrayList<>();
+        map.valuesAfter(35).forEachRemaining(after::add);
+        assertEquals(List.of("v6", "v7", "v8", "v9", "v10"), after, "Удалённые пропускаются, начало - первый ключ больше заданного");
+        assertFalse(map.valuesAfter(100).hasNext());
+
+        map.put(15, "поздний");
+        assertFalse(map.isAscending(), "Ключ меньше последнего нарушает порядок");
+        assertThrows(IllegalStateException.class, () -> map.valuesAfter(0));
+
+        map.remove(15);
+        for (int key = 200; key < 240; key++) {
+            map.put(key, "заполнитель");
+            map.remove(key);
+        }
+        assertTrue(map.isAscending(), "После перестройки без нарушившего ключа порядок восстанавливается");
+        map.clear();
+        assertTrue(map.isAscending());
+    }
+}
@@ -0,0 +1,51 @@
+package tracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void shouldKeepRelativeErrorWithinBucketWidth() {
+        long[] values = {0, 1, 31, 32, 33, 1_000, 123_456, 987_654_321L, 3_600_000_000_000L};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long highest = LatencyHistogram.highestValueOf(bucket);
+            assertTrue(highest >= value, "Корзина должна покрывать значение " + value);
+            assertTrue(highest - value <= value / 32, "Погрешность больше 1/32 для " + value);
+            if (bucket > 0) {
+                assertTrue(LatencyHistogram.highestValueOf(bucket - 1) < value, "Значение " + value + " попало не в ту корзину");
+            }
+        }
+    }
+
+    @Test
+    void shouldComputePercentilesAndMean() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1_000, snapshot.getCount());
+        assertEquals(500_500, snapshot.getMean(), 1e-6, "Среднее считается по точной сумме");
+        assertEquals(1_000_000, snapshot.getMax());
+        assertEquals(500_000, snapshot.getP50(), 500_000 / 32.0, "Медиана с точностью до ширины корзины");
+        assertEquals(990_000, snapshot.getP99(), 990_000 / 32.0, "99-й перцентиль с точностью до ширины корзины");
+        assertTrue(snapshot.getP999() <= snapshot.getMax(), "Перцентиль не может быть больше максимума");
+    }
+
+    @Test
+    void shouldStartOverAfterReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5_000);
+        histogram.record(-1);
+        histogram.reset();
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getP99());
+    }
+}